@@ -0,0 +1,116 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.Cat;
+import com.ambrosiaandrade.pets.models.Dog;
+import com.ambrosiaandrade.pets.service.AgeCalculator;
+import com.ambrosiaandrade.pets.service.CatSpeciesRules;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ages of a batch of cats: the former year-by-year loop over {@code Period.between}, the Cat model,
+ * {@code calculateAge} of loaded cats and dogs, and {@link AgeCalculator} one birthday at a time and in bulk.
+ * Run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgeCalculatorBenchmark {
+
+    @Param({"1000", "100000"})
+    private int animals;
+
+    private AgeCalculator calculator;
+    private LocalDate[] birthdays;
+    private Animal[] models;
+    private int[] epochDays;
+    private final ISpeciesRules catRules = new CatSpeciesRules();
+    private ISpeciesRules[] rules;
+    private int[] ages;
+    private int[] agesInHumanYears;
+
+    @Setup
+    public void setUp() {
+        calculator = new AgeCalculator(Clock.systemDefaultZone());
+        var random = new Random(42);
+        long today = LocalDate.now().toEpochDay();
+        birthdays = new LocalDate[animals];
+        epochDays = new int[animals];
+        rules = new ISpeciesRules[animals];
+        for (int i = 0; i < animals; i++) {
+            // Up to 20 years old
+            epochDays[i] = (int) (today - random.nextInt(7_300));
+            birthdays[i] = LocalDate.ofEpochDay(epochDays[i]);
+            rules[i] = catRules;
+        }
+        models = new Animal[animals];
+        for (int i = 0; i < animals; i++) {
+            models[i] = i % 2 == 0 ? new Cat(birthdays[i]) : new Dog(birthdays[i]);
+        }
+        ages = new int[animals];
+        agesInHumanYears = new int[animals];
+    }
+
+    /**
+     * Cat.calculateAge before the closed form.
+     */
+    @Benchmark
+    public void periodAndLoop(Blackhole blackhole) {
+        for (LocalDate birthday : birthdays) {
+            var years = Period.between(birthday, LocalDate.now()).getYears();
+            var animalYears = 0;
+            for (int i = 0; i < years; i++) {
+                if (i == 0) animalYears += 15;
+                else if (i == 1) animalYears += 9;
+                else animalYears += 4;
+            }
+            blackhole.consume(years);
+            blackhole.consume(animalYears);
+        }
+    }
+
+    @Benchmark
+    public void catModel(Blackhole blackhole) {
+        for (LocalDate birthday : birthdays) {
+            blackhole.consume(new Cat(birthday));
+        }
+    }
+
+    /**
+     * What the mapper does through {@code setBirthday}, half of them cats and half dogs.
+     */
+    @Benchmark
+    public Animal[] modelCalculateAge() {
+        for (Animal model : models) {
+            model.calculateAge();
+        }
+        return models;
+    }
+
+    @Benchmark
+    public void calculatorSingle(Blackhole blackhole) {
+        for (LocalDate birthday : birthdays) {
+            int years = calculator.years(birthday);
+            blackhole.consume(years);
+            blackhole.consume(catRules.humanYears(years));
+        }
+    }
+
+    @Benchmark
+    public int[] calculatorBulk() {
+        calculator.ages(epochDays, rules, ages, agesInHumanYears);
+        return agesInHumanYears;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.ambrosiaandrade.pets.service.AnimalColumnarSnapshot;
+import com.ambrosiaandrade.pets.service.CatSpeciesRules;
+import com.ambrosiaandrade.pets.service.DogSpeciesRules;
+import com.ambrosiaandrade.pets.service.OtherSpeciesRules;
+import com.ambrosiaandrade.pets.service.SpeciesRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Count and ages of the dogs between 3 and 9 years by gender: a parallel stream over the animal
+ * models against a scan of the columnar snapshot. The snapshot is loaded from memory, so only
+ * the scans are compared. The setup prints the heap of each form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AnimalAnalyticsBenchmark {
+
+    private static final SpeciesRegistry SPECIES = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    private static final String[] NAMES = {"Shadow", "Charlie", "Max", "Coco", "Bailey", "Lucky"};
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private List<Animal> animals;
+    private AnimalColumnarSnapshot snapshot;
+    private final AnimalSearch search = AnimalSearch.builder().type(AnimalTypeEnum.DOG).minAge(3).maxAge(9).build();
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        animals = animals(rows);
+        long modelBytes = usedHeap() - before;
+
+        // Only the chunked load of the snapshot is needed from the repository
+        var repository = (AnimalRepository) Proxy.newProxyInstance(AnimalRepository.class.getClassLoader(),
+                new Class<?>[]{AnimalRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findModelsAfter")) throw new UnsupportedOperationException(method.getName());
+                    int from = Math.max(0, (int) args[0]);
+                    return animals.subList(Math.min(from, rows), Math.min(from + ((Limit) args[1]).max(), rows));
+                });
+        snapshot = new AnimalColumnarSnapshot(repository, new SimpleMeterRegistry(), true);
+        before = usedHeap();
+        snapshot.rebuild();
+        long columnarBytes = usedHeap() - before;
+        System.out.printf("%n%d animals: %d MB as models, %d MB as columns%n", rows, modelBytes >> 20, columnarBytes >> 20);
+    }
+
+    @Benchmark
+    public Map<AnimalGenderEnum, IntSummaryStatistics> modelStream() {
+        return animals.parallelStream()
+                .filter(animal -> animal.getType() == search.getType()
+                        && animal.getAge() >= search.getMinAge() && animal.getAge() <= search.getMaxAge())
+                .collect(Collectors.groupingByConcurrent(Animal::getGender, Collectors.summarizingInt(Animal::getAge)));
+    }
+
+    @Benchmark
+    public AnimalAnalytics columnarScan() {
+        return snapshot.analyze(search, AnimalGroupByEnum.GENDER).orElseThrow();
+    }
+
+    private static List<Animal> animals(int rows) {
+        var random = new Random(42);
+        var animals = new ArrayList<Animal>(rows);
+        LocalDate first = LocalDate.of(2005, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            var type = AnimalTypeEnum.values()[random.nextInt(3)];
+            int age = random.nextInt(20);
+            // Ids from 1, so the id of the last animal of a chunk is also the index of the next one
+            animals.add(new Animal(i + 1, NAMES[random.nextInt(NAMES.length)], age, SPECIES.get(type).humanYears(age),
+                    first.plusDays(random.nextInt(7_300)), type, AnimalDietEnum.values()[random.nextInt(3)],
+                    AnimalGenderEnum.values()[random.nextInt(3)], 0));
+        }
+        return animals;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.service.AdvanceUtil;
+import com.ambrosiaandrade.pets.service.CatSpeciesRules;
+import com.ambrosiaandrade.pets.service.DogSpeciesRules;
+import com.ambrosiaandrade.pets.service.OtherSpeciesRules;
+import com.ambrosiaandrade.pets.service.SpeciesRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three generators of {@link AdvanceUtil} on their own, without the database the
+ * {@code /advance/populate} timings include.
+ * Run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimalGeneratorBenchmark {
+
+    @Param({"1000", "100000"})
+    private int number;
+
+    private AdvanceUtil util;
+
+    @Setup
+    public void setUp() {
+        var registry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+        util = new AdvanceUtil(registry, Clock.systemDefaultZone());
+    }
+
+    @Benchmark
+    public List<AnimalEntity> forLoop() {
+        return util.generateAnimalsWithFor(number);
+    }
+
+    @Benchmark
+    public List<AnimalEntity> intStream() {
+        return util.generateAnimalWithIntStream(number);
+    }
+
+    @Benchmark
+    public List<AnimalEntity> parallelIntStream() {
+        return util.generateAnimalWithIntStreamAndParallel(number);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.models.Animal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of one animal and of a list, with the object mapper configured
+ * the way Spring MVC builds it for the responses.
+ * Run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimalJsonBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private ObjectWriter writer;
+    private Animal animal;
+    private List<Animal> animals;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        animals = ExportBenchmark.animals(rows);
+        animal = animals.get(0);
+    }
+
+    @Benchmark
+    public byte[] one() throws Exception {
+        return writer.writeValueAsBytes(animal);
+    }
+
+    @Benchmark
+    public byte[] list() throws Exception {
+        return writer.writeValueAsBytes(animals);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
+import com.ambrosiaandrade.pets.interfaces.IAnimalMapperImpl;
+import com.ambrosiaandrade.pets.models.Animal;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One animal through the MapStruct mapper in both directions, and the constructor used for reads.
+ * {@code toModel} goes through {@code setBirthday}, which calculates the age again.
+ * Run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimalMapperBenchmark {
+
+    private final IAnimalMapper mapper = new IAnimalMapperImpl();
+    private Animal animal;
+    private AnimalEntity entity;
+
+    @Setup
+    public void setUp() {
+        animal = new Animal(7, "Coco", 5, 36, LocalDate.now().minusYears(5), AnimalTypeEnum.DOG,
+                AnimalDietEnum.OMNIVOROUS, AnimalGenderEnum.FEMALE, 0);
+        entity = mapper.toEntity(animal);
+    }
+
+    @Benchmark
+    public AnimalEntity toEntity() {
+        return mapper.toEntity(animal);
+    }
+
+    @Benchmark
+    public Animal toModel() {
+        return mapper.toModel(entity);
+    }
+
+    @Benchmark
+    public Animal toReadModel() {
+        return mapper.toReadModel(entity);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.service.AnimalNameDictionary;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Names of a million rows decoded like the JDBC driver does, a new string per row, kept as read
+ * against shared through the name dictionary. The setup prints the heap each list retains,
+ * run with {@code -prof gc} for the allocation of the reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AnimalNameBenchmark {
+
+    private static final String[] NAMES = {"Shadow", "Charlie", "Max", "Coco", "Bailey", "Lucky", "Bella", "Luna",
+            "Simba", "Nala", "Thor", "Mel", "Pipoca", "Paçoca", "Bolinha", "Frajola"};
+
+    @Param({"1000000"})
+    private int rows;
+
+    private byte[][] column;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        column = new byte[rows][];
+        for (int i = 0; i < rows; i++) {
+            column[i] = NAMES[random.nextInt(NAMES.length)].getBytes(StandardCharsets.UTF_8);
+        }
+        long copies = retained(UnaryOperator.identity());
+        long shared = retained(AnimalNameDictionary::intern);
+        System.out.printf("%n%d names: %d MB as read, %d MB shared%n", rows, copies >> 20, shared >> 20);
+    }
+
+    @Benchmark
+    public List<String> asRead() {
+        return read(UnaryOperator.identity());
+    }
+
+    @Benchmark
+    public List<String> shared() {
+        return read(AnimalNameDictionary::intern);
+    }
+
+    private List<String> read(UnaryOperator<String> names) {
+        var list = new ArrayList<String>(rows);
+        for (byte[] value : column) {
+            list.add(names.apply(new String(value, StandardCharsets.UTF_8)));
+        }
+        return list;
+    }
+
+    private long retained(UnaryOperator<String> names) {
+        long before = usedHeap();
+        var list = read(names);
+        long bytes = usedHeap() - before;
+        if (list.size() != rows) throw new IllegalStateException();
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.PetsApplication;
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.ambrosiaandrade.pets.service.AdvanceUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading every animal as entities + MapStruct versus the constructor projection.
+ * Run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimalReadBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private AnimalRepository repository;
+    private IAnimalMapper mapper;
+    private List<AnimalEntity> entities;
+
+    @Setup
+    public void setUp() {
+        var application = new SpringApplication(PetsApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run("--app.animal.limit=" + Integer.MAX_VALUE, "--app.animal.age-refresh.enabled=false",
+                "--logging.level.root=WARN");
+
+        repository = context.getBean(AnimalRepository.class);
+        mapper = context.getBean(IAnimalMapper.class);
+        repository.deleteAllInBatch();
+        repository.saveAllInBatches(context.getBean(AdvanceUtil.class).generateAnimalsWithFor(rows));
+        entities = repository.findAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Animal> findAllEntitiesAndMap() {
+        return repository.findAll().stream().map(mapper::toModel).toList();
+    }
+
+    @Benchmark
+    public List<Animal> findAllProjection() {
+        return repository.findAllModels();
+    }
+
+    /**
+     * Mapping alone, without the database: {@code new Animal()} and {@code setBirthday} recalculate the age.
+     */
+    @Benchmark
+    public List<Animal> mapLoadedEntities() {
+        return entities.stream().map(mapper::toModel).toList();
+    }
+
+    @Benchmark
+    public List<Animal> constructLoadedEntities() {
+        return entities.stream()
+                .map(e -> new Animal(e.getId(), e.getName(), e.getAge(), e.getAgeInHumanYears(), e.getBirthday(),
+                        e.getType(), e.getDiet(), e.getGender(), e.getVersion()))
+                .toList();
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.ambrosiaandrade.pets.service.CatSpeciesRules;
+import com.ambrosiaandrade.pets.service.DogSpeciesRules;
+import com.ambrosiaandrade.pets.service.ExportService;
+import com.ambrosiaandrade.pets.service.OtherSpeciesRules;
+import com.ambrosiaandrade.pets.service.SpeciesRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CSV and PDF exports of a number of animals, read from memory so only the writing is measured.
+ * Run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    private static final SpeciesRegistry SPECIES = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    private static final String[] NAMES = {"Shadow", "Charlie", "Max", "Coco", "Bailey", "Lucky"};
+
+    @Param({"100", "1000", "10000"})
+    private int rows;
+
+    private ExportService service;
+
+    @Setup
+    public void setUp() {
+        List<Animal> animals = animals(rows);
+        // Only the read of every animal is needed from the repository
+        var repository = (AnimalRepository) Proxy.newProxyInstance(AnimalRepository.class.getClassLoader(),
+                new Class<?>[]{AnimalRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllModels") || args != null) throw new UnsupportedOperationException(method.getName());
+                    return animals;
+                });
+        service = new ExportService(repository);
+    }
+
+    @Benchmark
+    public byte[] csv() {
+        return service.getCsv();
+    }
+
+    @Benchmark
+    public byte[] pdf() {
+        return service.getPdf();
+    }
+
+    static List<Animal> animals(int rows) {
+        var random = new Random(42);
+        var animals = new ArrayList<Animal>(rows);
+        LocalDate first = LocalDate.of(2005, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            var type = AnimalTypeEnum.values()[random.nextInt(3)];
+            int age = random.nextInt(20);
+            animals.add(new Animal(i + 1, NAMES[random.nextInt(NAMES.length)], age, SPECIES.get(type).humanYears(age),
+                    first.plusDays(random.nextInt(7_300)), type, AnimalDietEnum.values()[random.nextInt(3)],
+                    AnimalGenderEnum.values()[random.nextInt(3)], 0));
+        }
+        return animals;
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.ambrosiaandrade.pets.benchmark;
+
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.Cat;
+import com.ambrosiaandrade.pets.models.Dog;
+import com.ambrosiaandrade.pets.service.AgeCalculator;
+import com.ambrosiaandrade.pets.service.CatSpeciesRules;
+import com.ambrosiaandrade.pets.service.DogSpeciesRules;
+import com.ambrosiaandrade.pets.service.OtherSpeciesRules;
+import com.ambrosiaandrade.pets.service.SpeciesRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The derived fields of a saved animal: the former throwaway Cat, Dog or Animal built to read
+ * them back, against the species rules of the registry.
+ * Run with {@code -prof gc}, the registry shouldn't allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpeciesRulesBenchmark {
+
+    @Param({"CAT", "DOG", "OTHER"})
+    private AnimalTypeEnum type;
+
+    private Animal animal;
+    private SpeciesRegistry registry;
+    private AgeCalculator calculator;
+
+    @Setup
+    public void setUp() {
+        animal = new Animal(LocalDate.now().minusYears(4));
+        animal.setType(type);
+        registry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+        calculator = new AgeCalculator(Clock.systemDefaultZone());
+    }
+
+    /**
+     * AnimalService.handleEmptyFields before the registry.
+     */
+    @Benchmark
+    public Animal throwawayModel() {
+        Animal newAnimal = switch (animal.getType()) {
+            case CAT -> new Cat(animal.getBirthday());
+            case DOG -> new Dog(animal.getBirthday());
+            default -> new Animal(animal.getBirthday());
+        };
+        animal.setAge(newAnimal.getAge());
+        animal.setAgeInHumanYears(newAnimal.getAgeInHumanYears());
+        animal.setDiet(newAnimal.getDiet());
+        return animal;
+    }
+
+    @Benchmark
+    public Animal speciesRules() {
+        ISpeciesRules rules = registry.get(animal.getType());
+        if (rules.validate(animal, calculator.days(animal.getBirthday())) != null) return null;
+        int years = calculator.years(animal.getBirthday());
+        animal.setAge(years);
+        animal.setAgeInHumanYears(rules.humanYears(years));
+        animal.setDiet(rules.defaultDiet());
+        return animal;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.ambrosiaandrade.pets.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the job that refreshes the stored ages after the birthday anniversaries.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.animal.age-refresh")
+public class AgeRefreshProperties {
+
+    private boolean enabled = true;
+    private String cron = "0 5 0 * * *";
+    private int chunkSize = 1_000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+}
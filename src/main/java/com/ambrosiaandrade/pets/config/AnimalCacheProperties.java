@@ -0,0 +1,38 @@
+package com.ambrosiaandrade.pets.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Limits of the animal caches.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.animal.cache")
+public class AnimalCacheProperties {
+
+    /**
+     * Maximum number of animals held by the "AllData" list, a bigger list isn't cached.
+     */
+    private long allDataMaxAnimals = 50_000;
+    private Duration allDataTtl = Duration.ofMinutes(10);
+    /**
+     * Maximum size of the JSON kept by "AllDataJson", the gzip copy isn't counted.
+     */
+    private DataSize allDataJsonMaxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Maximum number of animals held by the per-id "animal" cache.
+     */
+    private long animalMaxSize = 10_000;
+    private Duration animalTtl = Duration.ofMinutes(30);
+    /**
+     * How long an id that doesn't exist is remembered.
+     */
+    private Duration animalNotFoundTtl = Duration.ofSeconds(5);
+
+}
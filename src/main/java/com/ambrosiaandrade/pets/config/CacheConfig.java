@@ -0,0 +1,85 @@
+package com.ambrosiaandrade.pets.config;
+
+import com.ambrosiaandrade.pets.models.EncodedJson;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Caffeine caches with bounded size and expiration. Statistics are recorded, so they are
+ * published as {@code cache.*} metrics and listed by the actuator {@code caches} endpoint.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ALL_DATA = "AllData";
+    public static final String ALL_DATA_JSON = "AllDataJson";
+    public static final String ANIMAL = "animal";
+    public static final String STATS = "AnimalStats";
+
+    @Bean
+    public CacheManager cacheManager(AnimalCacheProperties properties) {
+        var cacheManager = new CaffeineCacheManager();
+        // Only the registered caches exist, a typo in a cache name fails instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+
+        // Weighed by the list size, so the limit is in animals and not in entries
+        cacheManager.registerCustomCache(ALL_DATA, Caffeine.newBuilder()
+                .maximumWeight(properties.getAllDataMaxAnimals())
+                .weigher((Object key, Object value) -> value instanceof List<?> list ? list.size() : 1)
+                .expireAfterWrite(properties.getAllDataTtl())
+                .recordStats()
+                .build());
+
+        // The same list already serialized, weighed in bytes
+        cacheManager.registerCustomCache(ALL_DATA_JSON, Caffeine.newBuilder()
+                .maximumWeight(properties.getAllDataJsonMaxSize().toBytes())
+                .weigher((Object key, Object value) -> value instanceof EncodedJson json ? json.getJson().length : 1)
+                .expireAfterWrite(properties.getAllDataTtl())
+                .recordStats()
+                .build());
+
+        // Keyed by the collection version, only the current one is read, the others just wait to expire
+        cacheManager.registerCustomCache(STATS, Caffeine.newBuilder()
+                .maximumSize(4)
+                .expireAfterWrite(properties.getAllDataTtl())
+                .recordStats()
+                .build());
+
+        // Size bound with Caffeine's W-TinyLFU policy. A missing id is cached as NullValue with a short TTL
+        cacheManager.registerCustomCache(ANIMAL, Caffeine.newBuilder()
+                .maximumSize(properties.getAnimalMaxSize())
+                .expireAfter(Expiry.writing((Object key, Object value) ->
+                        value == NullValue.INSTANCE ? properties.getAnimalNotFoundTtl() : properties.getAnimalTtl()))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    /**
+     * Hit ratio of every cache since startup, the {@code cache.gets} counters only have the totals.
+     */
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                Gauge.builder("cache.hit.ratio", cache.getNativeCache(), nativeCache -> nativeCache.stats().hitRate())
+                        .tag("cache", name)
+                        .description("Ratio of lookups answered by the cache")
+                        .register(registry);
+            }
+        });
+    }
+
+}
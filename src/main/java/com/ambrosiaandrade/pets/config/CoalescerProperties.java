@@ -0,0 +1,21 @@
+package com.ambrosiaandrade.pets.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the write coalescer that groups concurrent single-animal saves into one transaction.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.animal.coalescer")
+public class CoalescerProperties {
+
+    private boolean enabled;
+    private int maxBatchSize = 64;
+    private long maxWaitMs = 5;
+    private int queueCapacity = 10_000;
+    private long timeoutMs = 30_000;
+
+}
@@ -0,0 +1,30 @@
+package com.ambrosiaandrade.pets.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of the synthetic dataset generator behind {@code POST /advance/dataset}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.animal.dataset")
+public class DatasetProperties {
+
+    /**
+     * Rows of each insert transaction, only one chunk is in memory at a time.
+     */
+    private int chunkSize = 5_000;
+    /**
+     * Upper bound of the rows of one dataset, replaces {@code app.animal.limit} for the generator.
+     */
+    private int maxRows = 10_000_000;
+    /**
+     * Where the NDJSON and CSV files are written.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "pets-datasets");
+
+}
@@ -15,5 +15,9 @@ public class KafkaProperties {
     private int retries;
     private int retryBackoffMs;
     private String retryPolicy;
+    // Every instance reads the whole invalidation topic, so each one has its own consumer group
+    private String invalidationTopic;
+    // Host and port, a random id would leave a new consumer group behind on every restart
+    private String instanceId = "localhost";
 
 }
@@ -1,8 +1,22 @@
 package com.ambrosiaandrade.pets.controller;
 
+import com.ambrosiaandrade.pets.exceptions.BaseException;
 import com.ambrosiaandrade.pets.exceptions.ErrorMessage;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalBulkUpdate;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.AnimalStats;
+import com.ambrosiaandrade.pets.models.BulkResult;
+import com.ambrosiaandrade.pets.service.AnimalCollectionVersion;
 import com.ambrosiaandrade.pets.service.AnimalService;
+import com.ambrosiaandrade.pets.service.AnimalWriteCoalescer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,12 +24,23 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @Tag(name = "1. Animal", description = "Operations related to animals")
 @RestController
@@ -23,9 +48,16 @@ import java.util.List;
 public class AnimalController {
 
     private final AnimalService service;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<AnimalWriteCoalescer> writeCoalescer;
+    private final AnimalCollectionVersion collectionVersion;
 
-    public AnimalController(AnimalService service) {
+    public AnimalController(AnimalService service, ObjectMapper objectMapper, ObjectProvider<AnimalWriteCoalescer> writeCoalescer,
+                            AnimalCollectionVersion collectionVersion) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.writeCoalescer = writeCoalescer;
+        this.collectionVersion = collectionVersion;
     }
 
     @Operation(
@@ -46,7 +78,9 @@ public class AnimalController {
     })
     @PostMapping
     public ResponseEntity<Object> addAnimal(@RequestBody Animal animal) {
-        var savedAnimal = service.saveAnimal(animal);
+        // The coalescer only exists when app.animal.coalescer.enabled=true
+        var coalescer = writeCoalescer.getIfAvailable();
+        var savedAnimal = coalescer != null ? coalescer.save(animal) : service.saveAnimal(animal);
 
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
@@ -57,9 +91,39 @@ public class AnimalController {
         return ResponseEntity.created(location).body(savedAnimal);
     }
 
+    @Operation(
+            summary = "Add many animals at once",
+            description = "Reads a JSON array or NDJSON (one animal per line) as a stream and saves the animals in fixed-size transactional chunks. Returns the generated id of each item in request order."
+    )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Animal.class))),
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = Animal.class))
+            }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Animals processed, see the summary for rejected items",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Malformed payload",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> addAnimals(InputStream body) throws IOException {
+        // readValues unwraps a root JSON array and also reads whitespace separated values (NDJSON)
+        try (MappingIterator<Animal> animals = objectMapper.readerFor(Animal.class).readValues(body)) {
+            return ResponseEntity.ok().body(service.saveAnimals(animals));
+        }
+    }
+
     @Operation(
             summary = "Retrieve an animal by ID",
-            description = "Returns an animal in the system."
+            description = "Returns an animal in the system. The ETag header holds its version, send it back in If-None-Match to get a 304 while the animal is unchanged."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -67,6 +131,10 @@ public class AnimalController {
                     description = "Animal retrieved successfully",
                     content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Animal.class))}
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Animal not modified since the informed ETag"
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -75,7 +143,9 @@ public class AnimalController {
     })
     @GetMapping("/{id}")
     public ResponseEntity<Object> getAnimalById(@PathVariable int id) {
-        return ResponseEntity.ok().body(service.getAnimal(id));
+        var animal = service.getAnimal(id).orElseThrow(() -> new BaseException("Not found animal with " + id + " id", 404));
+        // With an ETag on the response, Spring answers a matching If-None-Match with an empty 304
+        return ResponseEntity.ok().eTag(eTag(animal)).body(animal);
     }
 
     @Operation(
@@ -115,54 +185,250 @@ public class AnimalController {
                             array = @ArraySchema(schema = @Schema(implementation = Animal.class))
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "No animal changed since the informed ETag"
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
             )
     })
     @GetMapping
-    public ResponseEntity<List<Animal>> getAnimals() {
-        return ResponseEntity.ok().body(service.getAnimals());
+    public ResponseEntity<List<Animal>> getAnimals(WebRequest request) {
+        // Checked before the repository, an idle poller costs no query
+        String eTag = collectionVersion.eTag();
+        if (request.checkNotModified(eTag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        return ResponseEntity.ok().eTag(eTag).body(service.getAnimals());
+    }
+
+    @Operation(
+            summary = "Get the animal statistics",
+            description = "Returns the number of animals by type, diet, gender and age, counted by the database "
+                    + "once per change of the animals. Send the ETag back in If-None-Match to get a 304 while nothing changed."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics retrieved successfully",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AnimalStats.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "No animal changed since the informed ETag"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @GetMapping("/stats")
+    public ResponseEntity<AnimalStats> getStats(WebRequest request) {
+        String eTag = collectionVersion.eTag();
+        if (request.checkNotModified(eTag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        return ResponseEntity.ok().eTag(eTag).body(service.getStats());
+    }
+
+    @Operation(
+            summary = "Stream all animals",
+            description = "Writes the animals while they are read from the database, ordered by id, so the memory used "
+                    + "doesn't grow with the number of animals. A JSON array by default, one animal per line with Accept: application/x-ndjson."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Animals streamed",
+                    content = {
+                            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Animal.class))),
+                            @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = Animal.class))
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "No animal changed since the informed ETag"
+            )
+    })
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamAnimals(WebRequest request,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String eTag = collectionVersion.eTag();
+        if (request.checkNotModified(eTag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        ObjectWriter writer = objectMapper.writerFor(Animal.class)
+                // The servlet stream is closed by Spring, and flushed by its buffer, not after every animal
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Runs on an MVC async thread, one generator writes the animals while they are read
+        StreamingResponseBody body = output -> {
+            try (SequenceWriter sequence = ndjson
+                    ? writer.withRootValueSeparator("\n").writeValues(output)
+                    : writer.writeValuesAsArray(output)) {
+                service.forEachAnimal(animal -> {
+                    try {
+                        sequence.write(animal);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            if (ndjson) output.write('\n');
+        };
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @Operation(
             summary = "Delete an animal by ID",
-            description = "Deletes an animal from the system."
+            description = "Deletes an animal from the system. With If-Match, only while the animal still has that ETag."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "204",
                     description = "Animal deleted successfully"
             ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "Animal modified since the If-Match ETag", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
             )
     })
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteAnimalById(@PathVariable int id) {
-        service.deleteAnimal(id);
+    public ResponseEntity<Object> deleteAnimalById(@PathVariable int id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        service.deleteAnimal(id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+            summary = "Delete animals by filter",
+            description = "Deletes every animal matching the filter (ids, type, diet, creation date range) with a single statement and returns the number of deleted animals."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Animals deleted successfully",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(example = "{\"affected\": 3}"))}
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No filter informed", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAnimals(@ParameterObject AnimalFilter filter) {
+        return ResponseEntity.ok().body(Map.of("affected", service.deleteAnimals(filter)));
+    }
+
+    @Operation(
+            summary = "Update animals by filter",
+            description = "Sets the informed fields on every animal matching the filter (ids, type, diet, creation date range) with a single statement and returns the number of updated animals."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Animals updated successfully",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(example = "{\"affected\": 3}"))}
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No filter or no field informed", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @PatchMapping
+    public ResponseEntity<Map<String, Integer>> updateAnimals(@ParameterObject AnimalFilter filter, @RequestBody AnimalBulkUpdate changes) {
+        return ResponseEntity.ok().body(Map.of("affected", service.updateAnimals(filter, changes)));
+    }
+
     @Operation(
             summary = "Update an animal by ID",
-            description = "Updates an existing animal in the system."
+            description = "Updates an existing animal in the system. With If-Match, only while the animal still has that ETag."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "202",
                     description = "Animal updated successfully", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Animal.class))}
             ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "Animal modified since the If-Match ETag", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
             )
     })
     @PutMapping("/{id}")
-    public ResponseEntity<Object> updateAnimalById(@RequestBody Animal animal, @PathVariable int id) {
-        var response = service.updateAnimal(animal, id);
-        return ResponseEntity.accepted().body(response);
+    public ResponseEntity<Object> updateAnimalById(@RequestBody Animal animal, @PathVariable int id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var response = service.updateAnimal(animal, id, expectedVersion(ifMatch));
+        return ResponseEntity.accepted().eTag(eTag(response)).body(response);
+    }
+
+    @Operation(
+            summary = "Partially update an animal by ID",
+            description = "Writes only the informed fields with a single statement, without reading the animal first. The ages are recalculated when the birthday or the type changes. With If-Match, only while the animal still has that ETag."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Animal updated successfully, the ETag header has the new version"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No field informed", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Animal not found", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "Animal modified since the If-Match ETag", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<Object> patchAnimalById(@RequestBody AnimalPatch patch, @PathVariable int id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var animal = service.patchAnimal(id, patch, expectedVersion(ifMatch));
+        return ResponseEntity.noContent().eTag(eTag(animal)).build();
+    }
+
+    private static String eTag(Animal animal) {
+        return "\"" + animal.getVersion() + "\"";
+    }
+
+    /**
+     * Reads the version out of an If-Match header, null when absent or "*".
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+        var tag = ifMatch.trim();
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            // Not an ETag this API ever produced, so it can't match the current one
+            throw new BaseException("If-Match " + ifMatch + " doesn't match the animal version.", 412);
+        }
     }
 
 }
@@ -1,8 +1,18 @@
 package com.ambrosiaandrade.pets.controller;
 
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
 import com.ambrosiaandrade.pets.exceptions.ErrorMessage;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.models.DatasetResult;
+import com.ambrosiaandrade.pets.models.DatasetSpec;
+import com.ambrosiaandrade.pets.models.KeysetPage;
 import com.ambrosiaandrade.pets.service.AdvanceService;
+import com.ambrosiaandrade.pets.service.AnimalCollectionVersion;
+import com.ambrosiaandrade.pets.service.AnimalDatasetGenerator;
+import com.ambrosiaandrade.pets.service.AnimalJsonCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -12,14 +22,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -32,6 +51,15 @@ public class PaginationController {
     @Autowired
     private AdvanceService service;
 
+    @Autowired
+    private AnimalCollectionVersion collectionVersion;
+
+    @Autowired
+    private AnimalJsonCache jsonCache;
+
+    @Autowired
+    private AnimalDatasetGenerator datasetGenerator;
+
     @Operation(
             summary = "Populate the database with random animal data",
             description = "Generates a specified number of random animal entries and saves them to the database."
@@ -63,9 +91,39 @@ public class PaginationController {
         return ResponseEntity.internalServerError().body("Error while generating data");
     }
 
+    @Operation(
+            summary = "Generate a reproducible synthetic dataset",
+            description = "Streams the number of animals of the spec into batched inserts or an NDJSON or CSV file, "
+                    + "drawn with weighted distributions from a seed. The same seed, today and distributions give the same animals. "
+                    + "Bounded by app.animal.dataset.max-rows instead of app.animal.limit, and it reports the rows per second."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Dataset generated",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = DatasetResult.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid spec",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Database or file error, the chunks inserted before it are kept",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @PostMapping("/dataset")
+    public ResponseEntity<DatasetResult> generateDataset(@RequestBody DatasetSpec spec) {
+        var result = datasetGenerator.generate(spec);
+        return ResponseEntity.ok().body(result);
+    }
+
     @Operation(
             summary = "Get the number of animals in the database",
-            description = "Returns all animals entries in the database."
+            description = "Returns all animals entries in the database. The JSON is serialized once per change of the animals "
+                    + "and sent gzip encoded when the client accepts it."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -75,15 +133,29 @@ public class PaginationController {
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = Animal.class))
                     )),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "No animal changed since the informed ETag"),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
                     content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))})
     })
-    @GetMapping("/no-pagination-with-cache")
-    public ResponseEntity<List<Animal>> getDataNoPaginationWithCache() {
-        var result = service.getDataNoPaginationButWithCache();
-        return ResponseEntity.ok().body(result);
+    @GetMapping(value = "/no-pagination-with-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getDataNoPaginationWithCache(WebRequest request,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Weak, the identity and gzip bodies are the same representation
+        String eTag = "W/" + collectionVersion.eTag();
+        if (request.checkNotModified(eTag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+
+        var json = jsonCache.getDataNoPagination();
+        var response = ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        // The bytes are copied to the response as they are, no message converter serializes them again
+        if (acceptsGzip(acceptEncoding)) return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.getGzip());
+        return response.body(json.getJson());
     }
 
     @Operation(
@@ -99,6 +171,10 @@ public class PaginationController {
                             array = @ArraySchema(schema = @Schema(implementation = Animal.class))
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "No animal changed since the informed ETag"
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -106,9 +182,11 @@ public class PaginationController {
             )
     })
     @GetMapping("/no-pagination")
-    public ResponseEntity<List<Animal>> getDataNoPagination() {
+    public ResponseEntity<List<Animal>> getDataNoPagination(WebRequest request) {
+        String eTag = collectionVersion.eTag();
+        if (request.checkNotModified(eTag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
         var result = service.getDataNoPagination();
-        return ResponseEntity.ok().body(result);
+        return ResponseEntity.ok().eTag(eTag).body(result);
     }
 
     @Operation(
@@ -136,4 +214,125 @@ public class PaginationController {
         return ResponseEntity.ok().body(result);
     }
 
+    @Operation(
+            summary = "Get the animals in the database with keyset pagination",
+            description = "Returns a page of animals ordered by the sort column and id, continuing after the cursor of the previous page. "
+                    + "Every page costs the same because there is no OFFSET, and the total is only counted with count=true."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Data retrieved successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = KeysetPage.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid cursor",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @GetMapping("/pagination/keyset")
+    public ResponseEntity<KeysetPage<Animal>> getDataWithKeysetPagination(
+            @Parameter(description = "nextCursor of the previous page, omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "ID") AnimalSortEnum sort,
+            @RequestParam(required = false, defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @Parameter(description = "Also count all animals, which scans the whole table")
+            @RequestParam(required = false, defaultValue = "false") boolean count) {
+        var result = service.getDataWithKeysetPagination(cursor, sort, direction, size, count);
+        return ResponseEntity.ok().body(result);
+    }
+
+    @Operation(
+            summary = "Search the animals by type, diet, gender, age, birthday and name",
+            description = "Returns a keyset page of the animals matching every informed criterion, filtered by the database "
+                    + "with the animal indexes. Request the next page with nextCursor and the same criteria."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Data retrieved successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = KeysetPage.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid cursor or criteria",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPage<Animal>> search(
+            @ParameterObject AnimalSearch search,
+            @Parameter(description = "nextCursor of the previous page, omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "ID") AnimalSortEnum sort,
+            @RequestParam(required = false, defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @Parameter(description = "Also count all matching animals")
+            @RequestParam(required = false, defaultValue = "false") boolean count) {
+        var result = service.search(search, cursor, sort, direction, size, count);
+        return ResponseEntity.ok().body(result);
+    }
+
+    @Operation(
+            summary = "Count and ages of the animals by group",
+            description = "Filters with the same criteria as the search and aggregates by the groupBy dimension. "
+                    + "It scans the in-memory columnar snapshot on every core, so it needs app.animal.columnar.enabled."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Data retrieved successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = AnimalAnalytics.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid criteria",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Columnar snapshot disabled or not loaded yet",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))}
+            )
+    })
+    @GetMapping("/analytics")
+    public ResponseEntity<AnimalAnalytics> analytics(
+            @ParameterObject AnimalSearch search,
+            @RequestParam(required = false, defaultValue = "NONE") AnimalGroupByEnum groupBy) {
+        var result = service.analytics(search, groupBy);
+        return ResponseEntity.ok().body(result);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.ambrosiaandrade.pets.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Progress of the age refresh, saved after every group of chunks so a restart resumes where it stopped.
+ * The version makes every save a compare-and-set, so only one instance runs the refresh at a time.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "age_refresh_checkpoint")
+public class AgeRefreshCheckpointEntity {
+
+    @Id
+    @Column(length = 50)
+    private String job;
+    /**
+     * Every anniversary up to this day is refreshed, null before the first complete run.
+     */
+    private LocalDate refreshedUntil;
+    /**
+     * Day of the run in progress, null when no run was interrupted.
+     */
+    private LocalDate target;
+    /**
+     * Last animal id of the run in progress already refreshed.
+     */
+    private int lastId;
+    /**
+     * Null until the checkpoint is first saved.
+     */
+    @Version
+    private Long version;
+
+}
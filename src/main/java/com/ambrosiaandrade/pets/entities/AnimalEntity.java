@@ -12,7 +12,7 @@ import java.time.LocalDate;
 /**
  * Entity class representing an animal in the database.
  * It includes fields for the animal's ID, name, age, birthday,
- * type, diet, and creation timestamp.
+ * type, diet, creation timestamp and the optimistic lock version.
  */
 @Data
 @Builder
@@ -20,13 +20,38 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "animal")
+@Table(name = "animal", indexes = {
+        // GET /animal/q, the type filters and the search by type, diet and gender. The diet and gender
+        // have a few values each, alone they don't select enough rows to be worth an index
+        @Index(name = "idx_animal_type_diet_gender", columnList = "type, diet, gender"),
+        // Page sorts, the id makes them match the keyset order (sort column, id)
+        @Index(name = "idx_animal_name", columnList = "name, id"),
+        @Index(name = "idx_animal_birthday", columnList = "birthday, id"),
+        @Index(name = "idx_animal_age_in_human_years", columnList = "age_in_human_years, id"),
+        // Age range of the search
+        @Index(name = "idx_animal_age", columnList = "age, id"),
+        // createdFrom/createdTo range filters
+        @Index(name = "idx_animal_created_at", columnList = "created_at"),
+        // Birthday anniversaries of the age refresh, read in id order
+        @Index(name = "idx_animal_birthday_month_day", columnList = "birthday_month_day, id")
+})
 public class AnimalEntity {
 
+    /**
+     * Pooled sequence (hi-lo style) instead of IDENTITY: Hibernate reserves
+     * {@code allocationSize} ids per round-trip, so inserts can be JDBC batched.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "animal_seq")
+    @SequenceGenerator(name = "animal_seq", sequenceName = "animal_seq", allocationSize = 50)
     private int id;
+    /**
+     * Incremented on every write, it's also the ETag of the animal resource.
+     */
+    @Version
+    private long version;
     @Column(length = 50, nullable = false)
+    @Convert(converter = AnimalNameConverter.class)
     private String name;
     @Column(length = 3)
     private int age;
@@ -50,4 +75,12 @@ public class AnimalEntity {
     @Column(updatable = false)
     private LocalDate createdAt;
 
+    /**
+     * Month and day of the birthday as {@code month * 100 + day}, kept by the database
+     * for every write, bulk statements and SQL scripts included. Null until read back.
+     */
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "int generated always as (month(birthday) * 100 + day_of_month(birthday))")
+    private Integer birthdayMonthDay;
+
 }
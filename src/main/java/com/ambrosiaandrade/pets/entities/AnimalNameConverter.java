@@ -0,0 +1,24 @@
+package com.ambrosiaandrade.pets.entities;
+
+import com.ambrosiaandrade.pets.service.AnimalNameDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Shares the name instances read from the database, for the entities and for the constructor
+ * projections that select the name. Written as is.
+ */
+@Converter
+public class AnimalNameConverter implements AttributeConverter<String, String> {
+
+    @Override
+    public String convertToDatabaseColumn(String name) {
+        return name;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String name) {
+        return AnimalNameDictionary.intern(name);
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.ambrosiaandrade.pets.enums;
+
+public enum AnimalChangeEnum {
+
+    SAVED,
+    UPDATED,
+    DELETED,
+    // Rows changed by a filter or a generator, the ids aren't known
+    BULK;
+
+}
@@ -0,0 +1,16 @@
+package com.ambrosiaandrade.pets.enums;
+
+/**
+ * Dimensions the animal analytics can be grouped by, NONE aggregates every matching animal together.
+ */
+public enum AnimalGroupByEnum {
+
+    NONE,
+    TYPE,
+    DIET,
+    GENDER,
+    AGE,
+    BIRTH_YEAR,
+    NAME;
+
+}
@@ -0,0 +1,55 @@
+package com.ambrosiaandrade.pets.enums;
+
+import com.ambrosiaandrade.pets.models.Animal;
+
+import java.time.LocalDate;
+
+/**
+ * Columns an animal list can be ordered by in keyset pagination, the id is always the tiebreaker.
+ */
+public enum AnimalSortEnum {
+
+    ID("id", false),
+    NAME("name", false),
+    BIRTHDAY("birthday", true),
+    AGE_IN_HUMAN_YEARS("ageInHumanYears", false);
+
+    private final String attribute;
+    private final boolean nullable;
+
+    AnimalSortEnum(String attribute, boolean nullable) {
+        this.attribute = attribute;
+        this.nullable = nullable;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Whether the column can hold nulls, the seek only needs a null branch for those.
+     */
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public String format(Animal animal) {
+        Object value = switch (this) {
+            case ID -> animal.getId();
+            case NAME -> animal.getName();
+            case BIRTHDAY -> animal.getBirthday();
+            case AGE_IN_HUMAN_YEARS -> animal.getAgeInHumanYears();
+        };
+        return value == null ? null : value.toString();
+    }
+
+    public Comparable<?> parse(String value) {
+        if (value == null) return null;
+        return switch (this) {
+            case ID, AGE_IN_HUMAN_YEARS -> Integer.valueOf(value);
+            case NAME -> value;
+            case BIRTHDAY -> LocalDate.parse(value);
+        };
+    }
+
+}
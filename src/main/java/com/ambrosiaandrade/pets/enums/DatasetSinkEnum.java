@@ -0,0 +1,12 @@
+package com.ambrosiaandrade.pets.enums;
+
+/**
+ * Where the generated animals go: batched inserts into the animal table, or a file of the dataset directory.
+ */
+public enum DatasetSinkEnum {
+
+    DATABASE,
+    NDJSON,
+    CSV;
+
+}
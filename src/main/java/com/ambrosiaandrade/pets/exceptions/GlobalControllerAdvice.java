@@ -2,9 +2,11 @@ package com.ambrosiaandrade.pets.exceptions;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -45,13 +47,14 @@ public class GlobalControllerAdvice {
     }
 
     /**
-     * Handles exceptions thrown when a method argument type does not match the expected type.
+     * Handles exceptions thrown when a request body fails validation or the query parameters
+     * can't be bound to a parameter object, like an unknown enum value in a filter.
      *
-     * @param e the exception thrown when a method argument type mismatch occurs
+     * @param e the binding exception, MethodArgumentNotValidException for request bodies
      * @return a ResponseEntity containing an ErrorMessage with status 400 (Bad Request)
      */
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Object> handleMethodArgumentNotValidException (MethodArgumentNotValidException e) {
+    @ExceptionHandler({MethodArgumentNotValidException.class, BindException.class})
+    public ResponseEntity<Object> handleMethodArgumentNotValidException (BindException e) {
         var err = new ErrorMessage(e.getMessage(), 400);
 
         return ResponseEntity.status(err.getStatusCode())
@@ -100,6 +103,20 @@ public class GlobalControllerAdvice {
                 .body(err);
     }
 
+    /**
+     * Handles exceptions thrown when an entity was changed by someone else since it was read.
+     *
+     * @param e the exception thrown when the optimistic lock version doesn't match
+     * @return a ResponseEntity containing an ErrorMessage with status 412 (Precondition Failed)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException (OptimisticLockingFailureException e) {
+        var err = new ErrorMessage(e.getMessage(), 412);
+
+        return ResponseEntity.status(err.getStatusCode())
+                .body(err);
+    }
+
     /**
      * Handles exceptions thrown when a requested resource is not found.
      *
@@ -3,12 +3,25 @@ package com.ambrosiaandrade.pets.interfaces;
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
 import com.ambrosiaandrade.pets.models.Animal;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring")
 public interface IAnimalMapper {
 
+    // Both are written by the database or by Hibernate, never by the model
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "birthdayMonthDay", ignore = true)
     AnimalEntity toEntity(Animal animal);
     Animal toModel(AnimalEntity animalEntity);
 
+    /**
+     * Same result as {@link #toModel(AnimalEntity)} through the all-args constructor,
+     * which doesn't recalculate the age like {@code new Animal()} and {@code setBirthday}.
+     */
+    default Animal toReadModel(AnimalEntity e) {
+        return new Animal(e.getId(), e.getName(), e.getAge(), e.getAgeInHumanYears(), e.getBirthday(),
+                e.getType(), e.getDiet(), e.getGender(), e.getVersion());
+    }
+
 }
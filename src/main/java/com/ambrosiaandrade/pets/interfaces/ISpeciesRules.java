@@ -0,0 +1,33 @@
+package com.ambrosiaandrade.pets.interfaces;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+
+/**
+ * Rules of one species: the diet it gets by default, how its age converts to human years and
+ * what makes an animal of it invalid. Implementations are stateless Spring beans, a new species
+ * only needs a new bean for its {@link AnimalTypeEnum}.
+ */
+public interface ISpeciesRules {
+
+    AnimalTypeEnum type();
+
+    AnimalDietEnum defaultDiet();
+
+    /**
+     * The age of this species in human years, the only place its conversion is written.
+     *
+     * @param years the age in years, negative for a birthday in the future
+     */
+    int humanYears(int years);
+
+    /**
+     * @param days the age of the animal in days, negative for a birthday in the future
+     * @return the reason the animal is invalid, null when it is valid
+     */
+    default String validate(Animal animal, int days) {
+        return days < 0 ? "birthday can't be in the future" : null;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.ambrosiaandrade.pets.listener;
+
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.config.KafkaProperties;
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalInvalidation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the local caches when another instance writes animals. Each instance has its own
+ * consumer group, named after its stable {@code app.kafka.instance-id}, so all of them read every
+ * message. A new group starts from the latest offset, older messages are already covered by the
+ * empty caches of a fresh start, and a restarted instance rejoins its group where it stopped.
+ */
+@Slf4j
+@Profile("dev")
+@Component
+public class AnimalInvalidationListener {
+
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KafkaProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public AnimalInvalidationListener(CacheManager cacheManager, ApplicationEventPublisher eventPublisher,
+                                      KafkaProperties properties, ObjectMapper objectMapper) {
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.invalidation-topic}",
+            groupId = "${spring.kafka.consumer.group-id}-invalidation-#{@kafkaProperties.instanceId}",
+            properties = "auto.offset.reset=latest")
+    public void consume(String message) throws JsonProcessingException {
+        var invalidation = objectMapper.readValue(message, AnimalInvalidation.class);
+        if (properties.getInstanceId().equals(invalidation.getOrigin())) return;
+
+        cacheManager.getCache(CacheConfig.ALL_DATA).clear();
+        Cache animals = cacheManager.getCache(CacheConfig.ANIMAL);
+        if (invalidation.getChange() == AnimalChangeEnum.BULK) {
+            animals.clear();
+        } else {
+            for (int i = 0; i < invalidation.getIds().size(); i++) {
+                Long version = invalidation.getVersions() == null ? null : invalidation.getVersions().get(i);
+                evictOlder(animals, invalidation.getIds().get(i), version);
+            }
+        }
+
+        // In-memory views like the type index follow the same event as the local writes
+        eventPublisher.publishEvent(AnimalChangedEvent.remote(invalidation.getChange(), invalidation.getIds()));
+        log.debug("[AnimalInvalidation] Applied {}", invalidation);
+    }
+
+    /**
+     * Keeps the cached animal when it's already at the version of the message or newer.
+     */
+    private static void evictOlder(Cache cache, int id, Long version) {
+        Cache.ValueWrapper cached = cache.get(id);
+        if (cached == null) return;
+        if (version != null && cached.get() instanceof Animal animal && animal.getVersion() >= version) return;
+        cache.evict(id);
+    }
+
+}
@@ -4,6 +4,7 @@ import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
 import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
 import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
 import com.ambrosiaandrade.pets.interfaces.IAnimal;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,7 +12,6 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
-import java.time.Period;
 
 /**
  * Animal class represents a generic animal with properties such as name, age,
@@ -48,9 +48,13 @@ public class Animal implements IAnimal {
     @Schema(description = "Gender of the animal", example = "FEMALE")
     private AnimalGenderEnum gender;
 
+    // Sent as the ETag header, not in the body
+    @JsonIgnore
+    @Schema(hidden = true)
+    private long version;
+
     public Animal () {
         this.setBirthday(LocalDate.now());
-        calculateAge();
         this.setDiet(AnimalDietEnum.OMNIVOROUS);
         this.setType(AnimalTypeEnum.OTHER);
         this.setGender(AnimalGenderEnum.UNKNOWN);
@@ -58,7 +62,6 @@ public class Animal implements IAnimal {
 
     public Animal (LocalDate date) {
         this.setBirthday(date);
-        calculateAge(date);
         this.setDiet(AnimalDietEnum.OMNIVOROUS);
         this.setType(AnimalTypeEnum.OTHER);
         this.setGender(AnimalGenderEnum.UNKNOWN);
@@ -69,22 +72,24 @@ public class Animal implements IAnimal {
         log.info("...");
     }
 
+    /**
+     * Ages from the birthday, human years counted like people's. The services convert them with the
+     * species rules of the type, and prefer the {@code AgeCalculator}, which doesn't read the date every time.
+     */
     @Override
     public void calculateAge() {
-        var years = Period.between(getBirthday(), LocalDate.now()).getYears();
-        this.setAge(years);
-        this.setAgeInHumanYears(years);
+        calculateAge(getBirthday());
     }
 
     public void calculateAge(LocalDate date) {
-        int years = Period.between(date, LocalDate.now()).getYears();
+        var years = AnimalAges.years(date, LocalDate.now());
         this.setAge(years);
         this.setAgeInHumanYears(years);
     }
 
     public void setBirthday(LocalDate date) {
         this.birthday = date;
-        calculateAge(date);
+        calculateAge();
     }
 
 }
@@ -0,0 +1,42 @@
+package com.ambrosiaandrade.pets.models;
+
+import java.time.LocalDate;
+
+/**
+ * Pure age functions shared by the models, the repositories and the services. The components that
+ * compute many ages against today use the {@code AgeCalculator} of the service package instead.
+ * Human years depend on the species, so they are converted by its {@code ISpeciesRules}.
+ */
+public final class AnimalAges {
+
+    private AnimalAges() {
+    }
+
+    /**
+     * Full years between two dates, like {@code Period.between(birthday, today).getYears()},
+     * negative for a birthday after today.
+     */
+    public static int years(LocalDate birthday, LocalDate today) {
+        return years(birthday.getYear(), monthDay(birthday.getMonthValue(), birthday.getDayOfMonth()), birthday.toEpochDay(),
+                today.getYear(), monthDay(today.getMonthValue(), today.getDayOfMonth()), today.toEpochDay());
+    }
+
+    /**
+     * Full years from a birthday to today, with both dates split in year, {@link #monthDay} and epoch day.
+     */
+    public static int years(int year, int monthDay, long epochDay, int todayYear, int todayMonthDay, long todayEpochDay) {
+        if (epochDay <= todayEpochDay) {
+            return todayYear - year - (todayMonthDay < monthDay ? 1 : 0);
+        }
+        // Period counts down from the birthday, a year isn't complete until the same month and day
+        return -(year - todayYear - (monthDay < todayMonthDay ? 1 : 0));
+    }
+
+    /**
+     * Month and day in one int that sorts like the dates of a year.
+     */
+    public static int monthDay(int month, int day) {
+        return month << 5 | day;
+    }
+
+}
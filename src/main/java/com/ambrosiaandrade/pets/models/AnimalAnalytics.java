@@ -0,0 +1,49 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Aggregates of the animals matching a search, by group. Groups without animals are left out.
+ */
+@Schema(description = "Count and ages of the animals matching the criteria, by group")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimalAnalytics {
+
+    @Schema(description = "Animals in the snapshot", example = "1000000")
+    private long scanned;
+    @Schema(description = "Animals matching the criteria", example = "250000")
+    private long total;
+    @Schema(description = "Dimension of the groups", example = "TYPE")
+    private AnimalGroupByEnum groupBy;
+    @Schema(description = "Aggregates by group, \"all\" when not grouped and \"null\" for animals without the value",
+            example = "{\"CAT\": {\"count\": 120000, \"minAge\": 0, \"maxAge\": 20, \"averageAge\": 9.8, \"averageAgeInHumanYears\": 55.1}}")
+    private Map<String, Group> groups;
+
+    @Schema(description = "Aggregates of one group")
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+
+        @Schema(description = "Animals in the group", example = "120000")
+        private long count;
+        @Schema(description = "Minimum age in years", example = "0")
+        private int minAge;
+        @Schema(description = "Maximum age in years", example = "20")
+        private int maxAge;
+        @Schema(description = "Average age in years", example = "9.8")
+        private double averageAge;
+        @Schema(description = "Average age in human years", example = "55.1")
+        private double averageAgeInHumanYears;
+
+    }
+
+}
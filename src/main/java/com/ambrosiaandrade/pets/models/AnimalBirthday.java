@@ -0,0 +1,20 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * What the age of an animal depends on, read by the age refresh.
+ */
+@Data
+@AllArgsConstructor
+public class AnimalBirthday {
+
+    private int id;
+    private LocalDate birthday;
+    private AnimalTypeEnum type;
+
+}
@@ -0,0 +1,30 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columns written by a bulk update, null fields are left untouched.
+ */
+@Schema(description = "Fields to set on every animal matched by the filter, null fields are left untouched")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimalBulkUpdate {
+
+    @Schema(description = "New name", example = "Buddy")
+    private String name;
+    @Schema(description = "New diet", example = "HERBICOROUS")
+    private AnimalDietEnum diet;
+    @Schema(description = "New gender", example = "FEMALE")
+    private AnimalGenderEnum gender;
+
+    public boolean isEmpty() {
+        return name == null && diet == null && gender == null;
+    }
+
+}
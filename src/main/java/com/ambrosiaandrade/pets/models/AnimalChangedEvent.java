@@ -0,0 +1,51 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published after animals were written, so in-memory views of the table can follow the database.
+ * JPA lifecycle callbacks would miss the bulk statements, so the services publish it themselves.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AnimalChangedEvent {
+
+    private final AnimalChangeEnum change;
+    // Null for BULK
+    private final List<Integer> ids;
+    // State after the change, null when only the ids are known
+    private final List<Animal> animals;
+    // Change made by another instance, received from the invalidation topic
+    private final boolean remote;
+
+    public static AnimalChangedEvent saved(List<Animal> animals) {
+        return new AnimalChangedEvent(AnimalChangeEnum.SAVED, animals.stream().map(Animal::getId).toList(), animals, false);
+    }
+
+    public static AnimalChangedEvent updated(Animal animal) {
+        return new AnimalChangedEvent(AnimalChangeEnum.UPDATED, List.of(animal.getId()), List.of(animal), false);
+    }
+
+    public static AnimalChangedEvent updated(int id) {
+        return new AnimalChangedEvent(AnimalChangeEnum.UPDATED, List.of(id), null, false);
+    }
+
+    public static AnimalChangedEvent deleted(int id) {
+        return new AnimalChangedEvent(AnimalChangeEnum.DELETED, List.of(id), null, false);
+    }
+
+    public static AnimalChangedEvent bulk() {
+        return new AnimalChangedEvent(AnimalChangeEnum.BULK, null, null, false);
+    }
+
+    public static AnimalChangedEvent remote(AnimalChangeEnum change, List<Integer> ids) {
+        return new AnimalChangedEvent(change, change == AnimalChangeEnum.BULK ? null : ids, null, true);
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Number of animals sharing the same type, diet, gender and age, a row of the statistics GROUP BY.
+ */
+@Data
+@AllArgsConstructor
+public class AnimalCount {
+
+    private AnimalTypeEnum type;
+    private AnimalDietEnum diet;
+    private AnimalGenderEnum gender;
+    private int age;
+    private long count;
+
+}
@@ -0,0 +1,41 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Criteria of the bulk operations. Every informed field is combined with AND.
+ */
+@Schema(description = "Filter of the bulk update and delete operations, informed fields are combined with AND")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimalFilter {
+
+    @Schema(description = "Ids of the animals", example = "[1, 2, 3]")
+    private List<Integer> ids;
+    @Schema(description = "Type of the animals", example = "DOG")
+    private AnimalTypeEnum type;
+    @Schema(description = "Diet of the animals", example = "OMNIVOROUS")
+    private AnimalDietEnum diet;
+
+    @Schema(description = "Created on or after this date (ISO format)", example = "2025-01-01")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate createdFrom;
+    @Schema(description = "Created on or before this date (ISO format)", example = "2025-12-31")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate createdTo;
+
+    public boolean isEmpty() {
+        return (ids == null || ids.isEmpty()) && type == null && diet == null && createdFrom == null && createdTo == null;
+    }
+
+}
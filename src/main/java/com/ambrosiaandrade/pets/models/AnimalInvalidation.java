@@ -0,0 +1,34 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Compact message of the invalidation topic, it carries only the ids and versions, never the animals.
+ */
+@Schema(description = "Message sent to the other instances after animals were written, so they evict their caches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnimalInvalidation {
+
+    @Schema(description = "Instance that wrote the animals, it ignores its own messages")
+    private String origin;
+
+    @Schema(description = "Kind of write", example = "UPDATED")
+    private AnimalChangeEnum change;
+
+    @Schema(description = "Changed ids, absent for bulk writes", example = "[7]")
+    private List<Integer> ids;
+
+    @Schema(description = "Version of each id after the write, absent when unknown", example = "[3]")
+    private List<Long> versions;
+
+}
@@ -0,0 +1,38 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Partial document of an animal, only the informed fields are written.
+ * Unlike {@link Animal} it has no defaults, so an absent field is always null.
+ */
+@Schema(description = "Partial animal, only the informed fields are updated")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimalPatch {
+
+    @Schema(description = "Name of the animal", example = "Buddy")
+    private String name;
+    @Schema(description = "Birthday of the animal in ISO format (YYYY-MM-DD), recalculates the ages", example = "2018-05-20")
+    private LocalDate birthday;
+    @Schema(description = "Type of the animal, recalculates the age in human years", example = "DOG")
+    private AnimalTypeEnum type;
+    @Schema(description = "Diet of the animal", example = "OMNIVOROUS")
+    private AnimalDietEnum diet;
+    @Schema(description = "Gender of the animal", example = "FEMALE")
+    private AnimalGenderEnum gender;
+
+    public boolean isEmpty() {
+        return name == null && birthday == null && type == null && diet == null && gender == null;
+    }
+
+}
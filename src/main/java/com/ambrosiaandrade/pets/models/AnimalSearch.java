@@ -0,0 +1,68 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.StringJoiner;
+
+/**
+ * Criteria of the animal search. Every informed field is combined with AND, the ranges include both ends.
+ */
+@Schema(description = "Criteria of the animal search, informed fields are combined with AND and the ranges include both ends")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimalSearch {
+
+    @Schema(description = "Type of the animals", example = "DOG")
+    private AnimalTypeEnum type;
+    @Schema(description = "Diet of the animals", example = "OMNIVOROUS")
+    private AnimalDietEnum diet;
+    @Schema(description = "Gender of the animals", example = "FEMALE")
+    private AnimalGenderEnum gender;
+
+    @Schema(description = "Minimum age in years", example = "2")
+    private Integer minAge;
+    @Schema(description = "Maximum age in years", example = "10")
+    private Integer maxAge;
+    @Schema(description = "Minimum age in human years", example = "20")
+    private Integer minAgeInHumanYears;
+    @Schema(description = "Maximum age in human years", example = "60")
+    private Integer maxAgeInHumanYears;
+
+    @Schema(description = "Born on or after this date (ISO format)", example = "2015-01-01")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate bornFrom;
+    @Schema(description = "Born on or before this date (ISO format)", example = "2020-12-31")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate bornTo;
+
+    @Schema(description = "Start of the name, case sensitive", example = "Bo")
+    private String name;
+
+    /**
+     * Names of the informed criteria in a fixed order, like {@code type+age}, or {@code none}.
+     * Values are left out so it can tag a metric without growing its cardinality.
+     */
+    public String shape() {
+        var shape = new StringJoiner("+");
+        if (type != null) shape.add("type");
+        if (diet != null) shape.add("diet");
+        if (gender != null) shape.add("gender");
+        if (minAge != null || maxAge != null) shape.add("age");
+        if (minAgeInHumanYears != null || maxAgeInHumanYears != null) shape.add("ageInHumanYears");
+        if (bornFrom != null || bornTo != null) shape.add("birthday");
+        if (name != null && !name.isEmpty()) shape.add("name");
+        return shape.length() == 0 ? "none" : shape.toString();
+    }
+
+}
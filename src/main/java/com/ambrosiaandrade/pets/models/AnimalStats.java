@@ -0,0 +1,53 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts of the animals by type, diet, gender and age. Every enum value is present, with 0 when no animal has it.
+ */
+@Schema(description = "Counts of the animals by type, diet, gender and age")
+@Data
+public class AnimalStats {
+
+    @Schema(description = "Number of animals", example = "300")
+    private long total;
+    @Schema(description = "Number of animals by type", example = "{\"CAT\": 100, \"DOG\": 150, \"OTHER\": 50}")
+    private Map<AnimalTypeEnum, Long> byType = zeros(AnimalTypeEnum.class);
+    @Schema(description = "Number of animals by diet", example = "{\"HERBICOROUS\": 40, \"OMNIVOROUS\": 200, \"CARNIVOROUS\": 60}")
+    private Map<AnimalDietEnum, Long> byDiet = zeros(AnimalDietEnum.class);
+    @Schema(description = "Number of animals by gender", example = "{\"FEMALE\": 140, \"MALE\": 150, \"UNKNOWN\": 10}")
+    private Map<AnimalGenderEnum, Long> byGender = zeros(AnimalGenderEnum.class);
+    @Schema(description = "Histogram of the age in years, only the ages some animal has", example = "{\"0\": 20, \"1\": 35, \"2\": 41}")
+    private Map<Integer, Long> byAge = new TreeMap<>();
+
+    /**
+     * Rolls the GROUP BY rows up into each dimension. An animal without diet or gender is only in the other counts.
+     */
+    public static AnimalStats of(List<AnimalCount> counts) {
+        var stats = new AnimalStats();
+        for (AnimalCount count : counts) {
+            stats.total += count.getCount();
+            if (count.getType() != null) stats.byType.merge(count.getType(), count.getCount(), Long::sum);
+            if (count.getDiet() != null) stats.byDiet.merge(count.getDiet(), count.getCount(), Long::sum);
+            if (count.getGender() != null) stats.byGender.merge(count.getGender(), count.getCount(), Long::sum);
+            stats.byAge.merge(count.getAge(), count.getCount(), Long::sum);
+        }
+        return stats;
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> zeros(Class<E> type) {
+        var map = new EnumMap<E, Long>(type);
+        for (E value : type.getEnumConstants()) map.put(value, 0L);
+        return map;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.ambrosiaandrade.pets.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact summary returned by the bulk insert: one generated id per item, in request order,
+ * plus the errors of the items that could not be saved.
+ */
+@Schema(description = "Per-item summary of a bulk insert")
+@Data
+public class BulkResult {
+
+    @Schema(description = "Number of items read from the request body", example = "3")
+    private int received;
+    @Schema(description = "Number of items saved", example = "2")
+    private int saved;
+    @Schema(description = "Number of items rejected", example = "1")
+    private int failed;
+
+    @Schema(description = "Generated id of each item, in request order, null when the item failed", example = "[101, null, 102]")
+    private List<Integer> ids = new ArrayList<>();
+    @Schema(description = "Errors of the rejected items")
+    private List<ItemError> errors = new ArrayList<>();
+
+    @Schema(description = "Error of a single item of the bulk insert")
+    @Data
+    @AllArgsConstructor
+    public static class ItemError {
+
+        @Schema(description = "Zero-based position of the item in the request body", example = "1")
+        private int index;
+        @Schema(description = "Reason why the item was rejected", example = "name is required")
+        private String message;
+        @Schema(description = "400 when the item is invalid, 500 when its chunk failed in the database", example = "400")
+        private int statusCode;
+
+        public ItemError(int index, String message) {
+            this(index, message, 400);
+        }
+
+    }
+
+}
@@ -9,7 +9,6 @@ import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
-import java.time.Period;
 
 /**
  * Represents a Cat, which is a type of Animal.
@@ -26,7 +25,6 @@ public class Cat extends Animal implements IAnimal {
         this.setType(AnimalTypeEnum.CAT);
         this.setGender(AnimalGenderEnum.UNKNOWN);
         this.setBirthday(LocalDate.now());
-        this.calculateAge();
     }
 
     public Cat(LocalDate birthday) {
@@ -34,7 +32,6 @@ public class Cat extends Animal implements IAnimal {
         this.setType(AnimalTypeEnum.CAT);
         this.setGender(AnimalGenderEnum.UNKNOWN);
         this.setBirthday(birthday);
-        this.calculateAge();
     }
 
     @Override
@@ -42,25 +39,6 @@ public class Cat extends Animal implements IAnimal {
         log.info("Miau!");
     }
 
-    @Override
-    public void calculateAge() {
-        var years = Period.between(getBirthday(), LocalDate.now()).getYears();
-        var animalYears = 0;
-
-        for (int i = 0; i < years; i++) {
-            if (i == 0) {
-                animalYears += 15; // first year
-            } else if (i == 1) {
-                animalYears += 9; // second year
-            } else {
-                animalYears += 4; // each subsequent year
-            }
-        }
-
-        this.setAge(years);
-        this.setAgeInHumanYears(animalYears);
-    }
-
     // Overloaded method to sleep with no parameters
     public void sleep() {
         log.info(getName() + " is sleeping.");
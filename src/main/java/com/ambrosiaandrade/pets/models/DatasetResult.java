@@ -0,0 +1,35 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.DatasetSinkEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of a generated dataset, with the seed and today needed to generate it again.
+ */
+@Schema(description = "Outcome of a generated dataset")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetResult {
+
+    @Schema(description = "Where the animals went", example = "DATABASE")
+    private DatasetSinkEnum sink;
+    @Schema(description = "Seed used, pass it again to generate the same animals", example = "42")
+    private long seed;
+    @Schema(description = "Day the ages were counted from", example = "2025-05-10")
+    private LocalDate today;
+    @Schema(description = "Number of animals written", example = "1000000")
+    private long rows;
+    @Schema(description = "Time to generate and write every animal, in milliseconds", example = "5321")
+    private long millis;
+    @Schema(description = "Animals written per second", example = "187934")
+    private long rowsPerSecond;
+    @Schema(description = "Path of the file written, null for the database", example = "/tmp/pets-datasets/animals-42-1000000.ndjson")
+    private String file;
+
+}
@@ -0,0 +1,53 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.enums.DatasetSinkEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * What to generate. The same seed, today and distributions give the same animals in the same order.
+ * Each distribution maps a value to its relative weight, values left out or weighing 0 are never drawn.
+ */
+@Schema(description = "Synthetic dataset to generate, the same seed, today and distributions give the same animals")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetSpec {
+
+    @Schema(description = "Number of animals", example = "1000000")
+    private int rows;
+    @Schema(description = "Where the animals go", example = "DATABASE")
+    @Builder.Default
+    private DatasetSinkEnum sink = DatasetSinkEnum.DATABASE;
+    @Schema(description = "Seed of the random numbers, a random one when null. The result returns the seed used", example = "42")
+    private Long seed;
+    @Schema(description = "Day the ages are counted from, the clock's today when null. Only for the NDJSON and CSV sinks", example = "2025-05-10")
+    private LocalDate today;
+
+    @Schema(description = "Minimum age in years, the birthdays are uniform between both ages", example = "0")
+    @Builder.Default
+    private int minAge = 0;
+    @Schema(description = "Maximum age in years, included", example = "20")
+    @Builder.Default
+    private int maxAge = 20;
+
+    @Schema(description = "Weight of each type, every type equally when null", example = "{\"CAT\": 3, \"DOG\": 2, \"OTHER\": 1}")
+    private Map<AnimalTypeEnum, Integer> types;
+    @Schema(description = "Weight of each diet, the default diet of the species when null", example = "{\"OMNIVOROUS\": 1}")
+    private Map<AnimalDietEnum, Integer> diets;
+    @Schema(description = "Weight of each gender, every gender equally when null", example = "{\"FEMALE\": 1, \"MALE\": 1}")
+    private Map<AnimalGenderEnum, Integer> genders;
+    @Schema(description = "Weight of each name, a few common pet names equally when null", example = "{\"Luna\": 5, \"Thor\": 3, \"Mel\": 1}")
+    private Map<String, Integer> names;
+
+}
@@ -9,7 +9,6 @@ import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
-import java.time.Period;
 
 @EqualsAndHashCode(callSuper = true)
 @Slf4j
@@ -21,7 +20,6 @@ public class Dog extends Animal implements IAnimal {
         this.setType(AnimalTypeEnum.DOG);
         this.setGender(AnimalGenderEnum.UNKNOWN);
         this.setBirthday(LocalDate.now());
-        this.calculateAge();
     }
 
     public Dog(LocalDate birthday) {
@@ -29,7 +27,6 @@ public class Dog extends Animal implements IAnimal {
         this.setType(AnimalTypeEnum.DOG);
         this.setGender(AnimalGenderEnum.UNKNOWN);
         this.setBirthday(birthday);
-        this.calculateAge();
     }
 
     @Override
@@ -37,25 +34,6 @@ public class Dog extends Animal implements IAnimal {
         log.info("Au au!");
     }
 
-    @Override
-    public void calculateAge() {
-        var years = Period.between(getBirthday(), LocalDate.now()).getYears();
-        var animalYears = 0;
-
-        for (int i = 0; i < years; i++) {
-            if (i == 0) {
-                animalYears += 15; // first year
-            } else if (i == 1) {
-                animalYears += 9; // second year
-            } else {
-                animalYears += 4; // each subsequent year
-            }
-        }
-
-        this.setAge(years);
-        this.setAgeInHumanYears(animalYears);
-    }
-
     public void jumpAtOwners() {
         log.info(getName() + " is jumping at its owner!");
     }
@@ -0,0 +1,45 @@
+package com.ambrosiaandrade.pets.models;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response body already serialized, written as it is on every hit.
+ * The gzip copy is only made when a client first asks for it.
+ */
+public final class EncodedJson {
+
+    private final byte[] json;
+    private volatile byte[] gzip;
+
+    public EncodedJson(byte[] json) {
+        this.json = json;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        byte[] result = gzip;
+        if (result == null) {
+            // Two first requests may both compress, the result is the same
+            result = compress(json);
+            gzip = result;
+        }
+        return result;
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        var output = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (var gzipOutput = new GZIPOutputStream(output)) {
+            gzipOutput.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: the sort column value and the id of that row.
+ * Sent to clients as an opaque URL-safe token, so the format may change without breaking them.
+ */
+@Data
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private AnimalSortEnum sort;
+    private Sort.Direction direction;
+    // Null when the last row has no value for the sort column
+    private String value;
+    private int id;
+
+    public String encode() {
+        var raw = sort + SEPARATOR + direction + SEPARATOR + id + SEPARATOR + (value == null ? "n" : "v" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token wasn't produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String token) {
+        var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // The value goes last, so a separator inside a name is kept
+        var parts = raw.split("\\" + SEPARATOR, 4);
+        if (parts.length != 4 || parts[3].isEmpty()) throw new IllegalArgumentException("Invalid cursor");
+
+        var sort = AnimalSortEnum.valueOf(parts[0]);
+        var value = parts[3].charAt(0) == 'v' ? parts[3].substring(1) : null;
+        // Fails fast on a value that doesn't fit the column
+        try {
+            sort.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        return new KeysetCursor(sort, Sort.Direction.valueOf(parts[1]), value, Integer.parseInt(parts[2]));
+    }
+
+}
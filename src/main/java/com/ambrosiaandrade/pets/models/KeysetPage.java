@@ -0,0 +1,30 @@
+package com.ambrosiaandrade.pets.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Page of a keyset (seek) pagination. There's no page number, the next page is read with {@code nextCursor}.
+ */
+@Schema(description = "Page of a keyset pagination, read the next page with nextCursor")
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KeysetPage<T> {
+
+    @Schema(description = "Items of the page")
+    private List<T> content;
+    @Schema(description = "Number of items in the page", example = "20")
+    private int size;
+    @Schema(description = "Opaque token of the next page, absent on the last page", example = "SUR8QVNDfDcwfHY3MA")
+    private String nextCursor;
+    @Schema(description = "Whether there is a next page", example = "true")
+    private boolean hasNext;
+    @Schema(description = "Number of items of all pages, only when count=true was requested", example = "5000")
+    private Long totalElements;
+
+}
@@ -0,0 +1,9 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.entities.AgeRefreshCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AgeRefreshCheckpointRepository extends JpaRepository<AgeRefreshCheckpointEntity, String> {
+}
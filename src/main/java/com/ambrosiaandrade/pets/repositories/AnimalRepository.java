@@ -2,18 +2,118 @@ package com.ambrosiaandrade.pets.repositories;
 
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
 import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalBirthday;
+import com.ambrosiaandrade.pets.models.AnimalCount;
+import com.ambrosiaandrade.pets.models.AnimalStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing AnimalEntity objects.
- * It extends CrudRepository to provide basic CRUD operations.
+ * It extends CrudRepository to provide basic CRUD operations, JpaSpecificationExecutor
+ * to count the {@link AnimalSpecifications} matches and {@link AnimalRepositoryCustom}
+ * for batched inserts and filtered bulk operations.
  */
 @Repository
-public interface AnimalRepository extends JpaRepository<AnimalEntity, Integer> {
+public interface AnimalRepository extends JpaRepository<AnimalEntity, Integer>, JpaSpecificationExecutor<AnimalEntity>, AnimalRepositoryCustom {
+
+    /**
+     * Constructor expression of the read-only {@link Animal} model. The rows are never managed
+     * entities (no snapshot, no dirty checking) and the all-args constructor has no side effects,
+     * unlike the mapper which goes through {@code new Animal()} and {@code setBirthday}.
+     * Name, birthday and type must not be null, the constructor rejects them.
+     */
+    String ANIMAL_PROJECTION = "select new com.ambrosiaandrade.pets.models.Animal("
+            + "a.id, a.name, a.age, a.ageInHumanYears, a.birthday, a.type, a.diet, a.gender, a.version) "
+            + "from AnimalEntity a";
+
+    String STREAM_FETCH_SIZE = "500";
 
     List<AnimalEntity> findByType(AnimalTypeEnum type);
 
+    @Query(ANIMAL_PROJECTION + " where a.id = :id")
+    Optional<Animal> findModelById(@Param("id") int id);
+
+    @Query(ANIMAL_PROJECTION)
+    List<Animal> findAllModels();
+
+    @Query(value = ANIMAL_PROJECTION, countQuery = "select count(a) from AnimalEntity a")
+    Page<Animal> findAllModels(Pageable pageable);
+
+    /**
+     * Reads the rows through the JDBC cursor {@value #STREAM_FETCH_SIZE} at a time. The projection keeps
+     * nothing in the persistence context, so memory doesn't grow with the table. It must be consumed
+     * and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(ANIMAL_PROJECTION + " order by a.id")
+    Stream<Animal> streamAllModels();
+
+    /**
+     * Next rows by id for loads that go through the table in chunks, without holding a cursor open.
+     */
+    @Query(ANIMAL_PROJECTION + " where a.id > :afterId order by a.id")
+    List<Animal> findModelsAfter(@Param("afterId") int afterId, Limit limit);
+
+    @Query(ANIMAL_PROJECTION + " where a.id in :ids")
+    List<Animal> findModelsByIds(@Param("ids") Collection<Integer> ids);
+
+    @Query(ANIMAL_PROJECTION + " where a.type = :type")
+    List<Animal> findModelsByType(@Param("type") AnimalTypeEnum type);
+
+    /**
+     * One scan grouped by every dimension of the statistics, the rows are rolled up in {@link AnimalStats}.
+     * There are at most a few hundred groups whatever the number of animals.
+     */
+    @Query("select new com.ambrosiaandrade.pets.models.AnimalCount(a.type, a.diet, a.gender, a.age, count(a)) "
+            + "from AnimalEntity a group by a.type, a.diet, a.gender, a.age")
+    List<AnimalCount> countByTypeDietGenderAndAge();
+
+    /**
+     * Animals with a birthday anniversary on one of the days, after the given id in id order,
+     * a seek on the (birthday_month_day, id) index.
+     *
+     * @param monthDays the anniversaries as {@code month * 100 + day}
+     */
+    @Query("select new com.ambrosiaandrade.pets.models.AnimalBirthday(a.id, a.birthday, a.type) from AnimalEntity a "
+            + "where a.birthdayMonthDay in :monthDays and a.id > :afterId order by a.id")
+    List<AnimalBirthday> findBirthdaysAfter(@Param("monthDays") Collection<Integer> monthDays, @Param("afterId") int afterId, Limit limit);
+
+    @Query("select new com.ambrosiaandrade.pets.models.AnimalBirthday(a.id, a.birthday, a.type) from AnimalEntity a "
+            + "where a.id > :afterId order by a.id")
+    List<AnimalBirthday> findBirthdaysAfter(@Param("afterId") int afterId, Limit limit);
+
+    /**
+     * Single DELETE statement, unlike {@code deleteById} which loads the entity first.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from AnimalEntity a where a.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Deletes the animal only while it still has the expected version.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from AnimalEntity a where a.id = :id and a.version = :version")
+    int deleteByIdAndVersion(@Param("id") int id, @Param("version") long version);
+
 }
@@ -0,0 +1,92 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalBirthday;
+import com.ambrosiaandrade.pets.models.AnimalBulkUpdate;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.KeysetCursor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Custom repository fragment with operations that Spring Data can't derive,
+ * implemented with the EntityManager in {@link AnimalRepositoryCustomImpl}.
+ */
+public interface AnimalRepositoryCustom {
+
+    /**
+     * Persists the given entities in a single transaction, flushing and clearing
+     * the persistence context every {@code hibernate.jdbc.batch_size} rows so the
+     * inserts go out as JDBC batches and memory stays bounded.
+     *
+     * @param entities the new entities to persist, their ids are filled in place
+     * @return the number of persisted entities
+     */
+    int saveAllInBatches(Iterable<AnimalEntity> entities);
+
+    /**
+     * Deletes every animal matching the filter with a single DELETE statement.
+     *
+     * @param filter the criteria, informed fields are combined with AND
+     * @return the number of deleted rows
+     */
+    int deleteByFilter(AnimalFilter filter);
+
+    /**
+     * Sets the informed fields on every animal matching the filter with a single UPDATE statement.
+     *
+     * @param filter  the criteria, informed fields are combined with AND
+     * @param changes the new values, null fields are left untouched
+     * @return the number of updated rows
+     */
+    int updateByFilter(AnimalFilter filter, AnimalBulkUpdate changes);
+
+    /**
+     * Writes only the informed fields of one animal with a single UPDATE, without reading it first.
+     * The age in human years is recalculated in SQL when the birthday or the type changes.
+     *
+     * @param id              the animal id
+     * @param patch           the fields to write, null fields are left untouched
+     * @param age             the age in years for the new birthday, ignored when the birthday isn't informed
+     * @param speciesRules    the rules of a type, converting the ages in human years
+     * @param expectedVersion the version the animal must still have, null to update any version
+     * @return the patched animal, read in the same transaction, empty when the animal doesn't exist or the version changed
+     */
+    Optional<Animal> patchById(int id, AnimalPatch patch, int age, Function<AnimalTypeEnum, ISpeciesRules> speciesRules, Long expectedVersion);
+
+    /**
+     * Writes new ages with one JDBC batch of UPDATEs by id, incrementing the versions. An animal
+     * whose birthday changed since it was read is skipped, its writer already set the ages, and
+     * so is an animal whose ages didn't change.
+     *
+     * @param animals          the animals and the birthdays the ages were calculated from
+     * @param ages             the age in years of each animal, at the same index
+     * @param agesInHumanYears the age in human years of each animal, at the same index
+     * @return the number of rows whose ages changed
+     */
+    int updateAges(List<AnimalBirthday> animals, int[] ages, int[] agesInHumanYears);
+
+    /**
+     * Reads the rows after the cursor ordered by {@code (sort, id)}, seeking with a WHERE on
+     * the last seen values instead of an OFFSET, so every page costs the same. Rows without
+     * a value for the sort column come last in ascending order and first in descending.
+     *
+     * @param spec      extra criteria, may be null
+     * @param sort      the sort column
+     * @param direction the sort direction, also applied to the id
+     * @param after     the position of the last row of the previous page, null for the first page
+     * @param limit     the maximum number of rows
+     * @return the rows of the page in order, projected to the read-only model
+     */
+    List<Animal> findPageAfter(Specification<AnimalEntity> spec, AnimalSortEnum sort, Sort.Direction direction, KeysetCursor after, int limit);
+
+}
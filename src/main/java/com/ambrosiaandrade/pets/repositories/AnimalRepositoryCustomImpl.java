@@ -0,0 +1,251 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalBirthday;
+import com.ambrosiaandrade.pets.models.AnimalBulkUpdate;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+public class AnimalRepositoryCustomImpl implements AnimalRepositoryCustom {
+
+    // A row whose ages are already current keeps its version, so its ETag stays valid
+    private static final String UPDATE_AGES = "update animal set age = ?, age_in_human_years = ?, version = version + 1 "
+            + "where id = ? and birthday = ? and (age <> ? or age_in_human_years <> ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public int saveAllInBatches(Iterable<AnimalEntity> entities) {
+        int count = 0;
+        for (AnimalEntity entity : entities) {
+            entityManager.persist(entity);
+            if (++count % batchSize == 0) {
+                // Sends the pending batch and detaches it, otherwise the context grows with every row
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int deleteByFilter(AnimalFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<AnimalEntity> delete = cb.createCriteriaDelete(AnimalEntity.class);
+        Root<AnimalEntity> root = delete.from(AnimalEntity.class);
+        delete.where(toPredicates(cb, root, filter));
+
+        return executeUpdate(entityManager.createQuery(delete));
+    }
+
+    @Override
+    @Transactional
+    public int updateByFilter(AnimalFilter filter, AnimalBulkUpdate changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<AnimalEntity> update = cb.createCriteriaUpdate(AnimalEntity.class);
+        Root<AnimalEntity> root = update.from(AnimalEntity.class);
+
+        if (changes.getName() != null) update.set(root.<String>get("name"), changes.getName());
+        if (changes.getDiet() != null) update.set(root.get("diet"), changes.getDiet());
+        if (changes.getGender() != null) update.set(root.get("gender"), changes.getGender());
+        incrementVersion(cb, update, root);
+        update.where(toPredicates(cb, root, filter));
+
+        return executeUpdate(entityManager.createQuery(update));
+    }
+
+    @Override
+    @Transactional
+    public Optional<Animal> patchById(int id, AnimalPatch patch, int age, Function<AnimalTypeEnum, ISpeciesRules> speciesRules, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<AnimalEntity> update = cb.createCriteriaUpdate(AnimalEntity.class);
+        Root<AnimalEntity> root = update.from(AnimalEntity.class);
+
+        if (patch.getName() != null) update.set(root.<String>get("name"), patch.getName());
+        if (patch.getBirthday() != null) update.set(root.<LocalDate>get("birthday"), patch.getBirthday());
+        if (patch.getType() != null) update.set(root.get("type"), patch.getType());
+        if (patch.getDiet() != null) update.set(root.get("diet"), patch.getDiet());
+        if (patch.getGender() != null) update.set(root.get("gender"), patch.getGender());
+
+        if (patch.getBirthday() != null) {
+            update.set(root.<Integer>get("age"), age);
+            if (patch.getType() != null) {
+                update.set(root.<Integer>get("ageInHumanYears"), speciesRules.apply(patch.getType()).humanYears(age));
+            } else {
+                // The type is only known by the database, so the value of every type goes in a CASE
+                CriteriaBuilder.SimpleCase<AnimalTypeEnum, Integer> humanYears = cb.selectCase(root.get("type"));
+                for (AnimalTypeEnum type : AnimalTypeEnum.values()) {
+                    humanYears.when(type, speciesRules.apply(type).humanYears(age));
+                }
+                update.set(root.<Integer>get("ageInHumanYears"), humanYears.otherwise(speciesRules.apply(null).humanYears(age)));
+            }
+        } else if (patch.getType() != null) {
+            // Same birthday, new species: the stored age is locked until the commit, so the age refresh can't change it in between
+            List<?> stored = entityManager.createNativeQuery("SELECT age FROM animal WHERE id = ? FOR UPDATE")
+                    .setParameter(1, id)
+                    .getResultList();
+            if (stored.isEmpty()) return Optional.empty();
+            int storedAge = ((Number) stored.get(0)).intValue();
+            update.set(root.<Integer>get("ageInHumanYears"), speciesRules.apply(patch.getType()).humanYears(storedAge));
+        }
+
+        incrementVersion(cb, update, root);
+        if (expectedVersion == null) {
+            update.where(cb.equal(root.get("id"), id));
+        } else {
+            update.where(cb.equal(root.get("id"), id), cb.equal(root.get("version"), expectedVersion));
+        }
+        if (executeUpdate(entityManager.createQuery(update)) == 0) return Optional.empty();
+        // The row stays locked by the update until the commit, so this is the state it wrote
+        return Optional.of(entityManager.createQuery(AnimalRepository.ANIMAL_PROJECTION + " where a.id = :id", Animal.class)
+                .setParameter("id", id)
+                .getSingleResult());
+    }
+
+    @Override
+    @Transactional
+    public int updateAges(List<AnimalBirthday> animals, int[] ages, int[] agesInHumanYears) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_AGES)) {
+                for (int i = 0; i < animals.size(); i++) {
+                    statement.setInt(1, ages[i]);
+                    statement.setInt(2, agesInHumanYears[i]);
+                    statement.setInt(3, animals.get(i).getId());
+                    statement.setObject(4, animals.get(i).getBirthday());
+                    statement.setInt(5, ages[i]);
+                    statement.setInt(6, agesInHumanYears[i]);
+                    statement.addBatch();
+                }
+                int updated = 0;
+                for (int count : statement.executeBatch()) {
+                    updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                }
+                return updated;
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Animal> findPageAfter(Specification<AnimalEntity> spec, AnimalSortEnum sort, Sort.Direction direction, KeysetCursor after, int limit) {
+        // The Hibernate builder can set the null precedence of the ORDER BY
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        CriteriaQuery<Animal> query = cb.createQuery(Animal.class);
+        Root<AnimalEntity> root = query.from(AnimalEntity.class);
+        // Same projection as AnimalRepository.ANIMAL_PROJECTION
+        query.select(cb.construct(Animal.class, root.get("id"), root.get("name"), root.get("age"),
+                root.get("ageInHumanYears"), root.get("birthday"), root.get("type"), root.get("diet"),
+                root.get("gender"), root.get("version")));
+        boolean ascending = direction.isAscending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) predicates.add(predicate);
+        }
+        if (after != null) predicates.add(seek(cb, root, sort, ascending, after));
+        query.where(predicates.toArray(Predicate[]::new));
+
+        if (sort == AnimalSortEnum.ID) {
+            query.orderBy(ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        } else {
+            Path<?> key = root.get(sort.getAttribute());
+            // Nulls are the lowest value like in the H2 indexes: first when ascending, last when descending,
+            // so the (key, id) index returns the rows already sorted in both directions
+            query.orderBy(ascending ? cb.asc(key, true) : cb.desc(key, false),
+                    ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        }
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Row-value comparison {@code (key, id) > (value, lastId)} spelled out with OR/AND,
+     * treating a null key as lower than any value. The redundant bound on the key lets
+     * the database seek the index instead of filtering every row.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate seek(CriteriaBuilder cb, Root<AnimalEntity> root, AnimalSortEnum sort, boolean ascending, KeysetCursor after) {
+        Path<Integer> id = root.get("id");
+        Predicate idAfter = ascending ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId());
+        if (sort == AnimalSortEnum.ID) return idAfter;
+
+        Path key = root.get(sort.getAttribute());
+        Comparable value = sort.parse(after.getValue());
+        if (value == null) {
+            return ascending
+                    ? cb.or(cb.isNotNull(key), cb.and(cb.isNull(key), idAfter))
+                    : cb.and(cb.isNull(key), idAfter);
+        }
+        if (ascending) return cb.and(cb.greaterThanOrEqualTo(key, value), cb.or(cb.greaterThan(key, value), idAfter));
+
+        Predicate before = cb.and(cb.lessThanOrEqualTo(key, value), cb.or(cb.lessThan(key, value), idAfter));
+        // The nulls come after every value when descending
+        return sort.isNullable() ? cb.or(before, cb.isNull(key)) : before;
+    }
+
+    /**
+     * Bulk statements skip the entity lifecycle, so the version has to be bumped by hand.
+     */
+    private static void incrementVersion(CriteriaBuilder cb, CriteriaUpdate<AnimalEntity> update, Root<AnimalEntity> root) {
+        Path<Long> version = root.get("version");
+        update.set(version, cb.sum(version, 1L));
+    }
+
+
+    private int executeUpdate(Query query) {
+        // Bulk statements bypass the persistence context, so flush pending changes before and drop stale state after
+        entityManager.flush();
+        int affected = query.executeUpdate();
+        entityManager.clear();
+        return affected;
+    }
+
+    private Predicate[] toPredicates(CriteriaBuilder cb, Root<AnimalEntity> root, AnimalFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getIds() != null && !filter.getIds().isEmpty()) predicates.add(root.get("id").in(filter.getIds()));
+        if (filter.getType() != null) predicates.add(cb.equal(root.get("type"), filter.getType()));
+        if (filter.getDiet() != null) predicates.add(cb.equal(root.get("diet"), filter.getDiet()));
+        if (filter.getCreatedFrom() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getCreatedFrom()));
+        if (filter.getCreatedTo() != null) predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filter.getCreatedTo()));
+        return predicates.toArray(Predicate[]::new);
+    }
+
+}
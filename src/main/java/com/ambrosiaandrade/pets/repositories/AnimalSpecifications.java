@@ -0,0 +1,76 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search criteria as Specifications over {@link AnimalEntity}. Each one is a plain comparison on
+ * an indexed column, so the database filters with the index instead of Java filtering the rows.
+ */
+public final class AnimalSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private AnimalSpecifications() {
+    }
+
+    /**
+     * Combines the informed criteria with AND, all animals when nothing is informed.
+     */
+    public static Specification<AnimalEntity> of(AnimalSearch search) {
+        List<Specification<AnimalEntity>> specs = new ArrayList<>();
+        if (search.getType() != null) specs.add(equal("type", search.getType()));
+        if (search.getDiet() != null) specs.add(equal("diet", search.getDiet()));
+        if (search.getGender() != null) specs.add(equal("gender", search.getGender()));
+        if (search.getMinAge() != null || search.getMaxAge() != null)
+            specs.add(between("age", search.getMinAge(), search.getMaxAge()));
+        if (search.getMinAgeInHumanYears() != null || search.getMaxAgeInHumanYears() != null)
+            specs.add(between("ageInHumanYears", search.getMinAgeInHumanYears(), search.getMaxAgeInHumanYears()));
+        if (search.getBornFrom() != null || search.getBornTo() != null)
+            specs.add(between("birthday", search.getBornFrom(), search.getBornTo()));
+        if (search.getName() != null && !search.getName().isEmpty()) specs.add(nameStartsWith(search.getName()));
+        return Specification.allOf(specs);
+    }
+
+    public static Specification<AnimalEntity> equal(String attribute, Object value) {
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    /**
+     * Range including both ends, either end may be null to leave that side open.
+     */
+    public static <T extends Comparable<? super T>> Specification<AnimalEntity> between(String attribute, T min, T max) {
+        return (root, query, cb) -> {
+            Path<T> path = root.get(attribute);
+            List<Predicate> predicates = new ArrayList<>(2);
+            if (min != null) predicates.add(cb.greaterThanOrEqualTo(path, min));
+            if (max != null) predicates.add(cb.lessThanOrEqualTo(path, max));
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * {@code name LIKE 'prefix%'} with the wildcards typed by the client escaped, so they match literally.
+     * The LIKE pattern is a parameter the planner can't read, so the redundant range
+     * {@code name >= 'prefix' and name < 'prefiy'} is what lets it seek the (name, id) index.
+     */
+    public static Specification<AnimalEntity> nameStartsWith(String prefix) {
+        String pattern = prefix.replace(String.valueOf(ESCAPE), "" + ESCAPE + ESCAPE)
+                .replace("%", ESCAPE + "%")
+                .replace("_", ESCAPE + "_") + "%";
+        char last = prefix.charAt(prefix.length() - 1);
+        String upperBound = last == Character.MAX_VALUE ? null : prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+        return (root, query, cb) -> {
+            Path<String> name = root.get("name");
+            Predicate like = cb.and(cb.greaterThanOrEqualTo(name, prefix), cb.like(name, pattern, ESCAPE));
+            return upperBound == null ? like : cb.and(like, cb.lessThan(name, upperBound));
+        };
+    }
+
+}
@@ -1,15 +1,30 @@
 package com.ambrosiaandrade.pets.service;
 
+import com.ambrosiaandrade.pets.config.CacheConfig;
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
-import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.models.KeysetCursor;
+import com.ambrosiaandrade.pets.models.KeysetPage;
 import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.ambrosiaandrade.pets.repositories.AnimalSpecifications;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
 
@@ -21,19 +36,29 @@ import java.util.function.Function;
 @Service
 public class AdvanceService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    static final String SEARCH_METRIC = "animal.search";
+    static final String ANALYTICS_METRIC = "animal.analytics";
+
     private final AnimalRepository repository;
-    private final IAnimalMapper mapper;
     private final AdvanceUtil util;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final AnimalColumnarSnapshot columnarSnapshot;
 
     @Value("${app.animal.limit:5000}")
     private Long animalLimit;
 
-    public AdvanceService(AnimalRepository repository, IAnimalMapper mapper, AdvanceUtil util) {
+    public AdvanceService(AnimalRepository repository, AdvanceUtil util, ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry, AnimalColumnarSnapshot columnarSnapshot) {
         this.repository = repository;
-        this.mapper = mapper;
         this.util = util;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.columnarSnapshot = columnarSnapshot;
     }
 
+    @CacheEvict(value = {CacheConfig.ALL_DATA, CacheConfig.ANIMAL}, allEntries = true)
     public List<String> generateAnimalsAndSave(int number) {
         if (number <= 0) return List.of("Invalid number");
         if (!verifyDataLimit()) return List.of("Maximum data limit");
@@ -47,6 +72,8 @@ public class AdvanceService {
         } catch (DataAccessException e) {
             log.error(e.getMessage());
         }
+        // Some batches may have been saved before a failure
+        eventPublisher.publishEvent(AnimalChangedEvent.bulk());
         return list;
     }
 
@@ -55,7 +82,7 @@ public class AdvanceService {
         stopWatch.start();
 
         List<AnimalEntity> entities = generator.apply(number);
-        repository.saveAll(entities);
+        repository.saveAllInBatches(entities);
 
         stopWatch.stop();
 
@@ -76,23 +103,20 @@ public class AdvanceService {
     public List<Animal> getDataNoPagination() {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        var list = repository.findAll()
-                .stream()
-                .map(mapper::toModel)
-                .toList();
+        var list = repository.findAllModels();
         stopWatch.stop();
         log.info(String.format("[getDataNoPagination] With time %s ms", stopWatch.getTotalTimeMillis()));
         return list;
     }
 
-    @Cacheable("AllData")
+    /**
+     * Keyed by the collection version, a list read before a write can't be served with the ETag of after it.
+     */
+    @Cacheable(value = CacheConfig.ALL_DATA, key = "@animalCollectionVersion.get()")
     public List<Animal> getDataNoPaginationButWithCache() {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        var list = repository.findAll()
-                .stream()
-                .map(mapper::toModel)
-                .toList();
+        var list = repository.findAllModels();
         stopWatch.stop();
         log.info(String.format("[getDataNoPaginationWithCache] With time %s ms", stopWatch.getTotalTimeMillis()));
         return list;
@@ -101,11 +125,98 @@ public class AdvanceService {
     public Page<Animal> getDataWithPagination(Pageable pageable) {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        var list = repository.findAll(pageable)
-                .map(mapper::toModel);
+        var list = repository.findAllModels(pageable);
         stopWatch.stop();
         log.info(String.format("[getDataWithPagination] With time %s ms", stopWatch.getTotalTimeMillis()));
         return list;
     }
 
-}
\ No newline at end of file
+    /**
+     * Keyset pagination: the cursor holds the sort value and id of the last row read, so the next
+     * page is a seek on the index instead of an OFFSET scan. The total is only counted on request.
+     *
+     * @param cursor    token of the previous page, null for the first page. Its sort and direction win over the parameters
+     * @param sort      the sort column of the first page
+     * @param direction the sort direction of the first page
+     * @param size      the page size, limited to {@value #MAX_PAGE_SIZE}
+     * @param count     whether to count all rows, which costs a full scan
+     */
+    public KeysetPage<Animal> getDataWithKeysetPagination(String cursor, AnimalSortEnum sort, Sort.Direction direction, int size, boolean count) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        var page = keysetPage(null, decode(cursor), sort, direction, size, count);
+        stopWatch.stop();
+        log.info(String.format("[getDataWithKeysetPagination] With time %s ms", stopWatch.getTotalTimeMillis()));
+        return page;
+    }
+
+    /**
+     * Keyset page of the animals matching the criteria, filtered by the database. The cursor doesn't
+     * carry the criteria, the next pages must be requested with the same ones. Every query is timed
+     * in {@code animal.search} tagged with its shape, the informed criteria without their values.
+     *
+     * @param search the criteria, informed fields are combined with AND
+     * @see #getDataWithKeysetPagination(String, AnimalSortEnum, Sort.Direction, int, boolean)
+     */
+    public KeysetPage<Animal> search(AnimalSearch search, String cursor, AnimalSortEnum sort, Sort.Direction direction, int size, boolean count) {
+        KeysetCursor after = decode(cursor);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        var page = keysetPage(AnimalSpecifications.of(search), after, sort, direction, size, count);
+        long nanos = sample.stop(Timer.builder(SEARCH_METRIC)
+                .description("Time of the animal searches by criteria shape")
+                .tag("shape", search.shape())
+                .tag("sort", (after == null ? sort : after.getSort()).name())
+                .tag("count", String.valueOf(count))
+                .register(meterRegistry));
+        log.info(String.format("[search] %s with time %s ms", search.shape(), nanos / 1_000_000));
+        return page;
+    }
+
+    /**
+     * Aggregates the animals matching the search from the columnar snapshot, the database isn't queried.
+     */
+    public AnimalAnalytics analytics(AnimalSearch search, AnimalGroupByEnum groupBy) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        var analytics = columnarSnapshot.analyze(search, groupBy)
+                .orElseThrow(() -> new BaseException("The columnar snapshot isn't loaded, check app.animal.columnar.enabled", 503));
+        long nanos = sample.stop(Timer.builder(ANALYTICS_METRIC)
+                .description("Time of the analytic scans of the columnar snapshot")
+                .tag("shape", search.shape())
+                .tag("groupBy", groupBy.name())
+                .register(meterRegistry));
+        log.info(String.format("[analytics] %s by %s over %d animals with time %s ms", search.shape(), groupBy, analytics.getScanned(), nanos / 1_000_000));
+        return analytics;
+    }
+
+    private static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BaseException("Invalid cursor: " + cursor, 400);
+        }
+    }
+
+    private KeysetPage<Animal> keysetPage(Specification<AnimalEntity> spec, KeysetCursor after, AnimalSortEnum sort, Sort.Direction direction, int size, boolean count) {
+        if (after != null) {
+            sort = after.getSort();
+            direction = after.getDirection();
+        }
+        int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+
+        // One extra row tells whether there is a next page without counting
+        var rows = repository.findPageAfter(spec, sort, direction, after, limit + 1);
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) rows = rows.subList(0, limit);
+
+        String nextCursor = null;
+        if (hasNext) {
+            var last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(sort, direction, sort.format(last), last.getId()).encode();
+        }
+        Long total = null;
+        if (count) total = spec == null ? repository.count() : repository.count(spec);
+        return new KeysetPage<>(rows, rows.size(), nextCursor, hasNext, total);
+    }
+
+}
@@ -1,14 +1,13 @@
 package com.ambrosiaandrade.pets.service;
 
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
-import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
-import com.ambrosiaandrade.pets.models.Animal;
-import com.ambrosiaandrade.pets.models.Cat;
-import com.ambrosiaandrade.pets.models.Dog;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
@@ -17,58 +16,56 @@ import java.util.stream.IntStream;
 @Component
 public class AdvanceUtil {
 
-    private final IAnimalMapper mapper;
+    private static final AnimalTypeEnum[] TYPES = AnimalTypeEnum.values();
+    static final String[] NAMES = {"Shadow", "Charlie", "Max", "Coco", "Bailey", "Lucky"};
 
-    public AdvanceUtil(IAnimalMapper mapper) {
-        this.mapper = mapper;
+    private final SpeciesRegistry speciesRegistry;
+    private final Clock clock;
+
+    public AdvanceUtil(SpeciesRegistry speciesRegistry, Clock clock) {
+        this.speciesRegistry = speciesRegistry;
+        this.clock = clock;
     }
 
     public List<AnimalEntity> generateAnimalsWithFor(int number) {
-        var entities = new ArrayList<AnimalEntity>();
-        for (int i = 0; i <= number; i++) {
-            entities.add(mapper.toEntity(generateAnimal()));
+        var entities = new ArrayList<AnimalEntity>(number);
+        Random random = ThreadLocalRandom.current();
+        LocalDate today = LocalDate.now(clock);
+        for (int i = 0; i < number; i++) {
+            entities.add(generateAnimal(random, today));
         }
         return entities;
     }
 
     public List<AnimalEntity> generateAnimalWithIntStream(int number) {
-        return IntStream.rangeClosed(0, number)
-                .mapToObj(i -> mapper.toEntity(generateAnimalThreadSafe()))
+        LocalDate today = LocalDate.now(clock);
+        return IntStream.range(0, number)
+                .mapToObj(i -> generateAnimal(ThreadLocalRandom.current(), today))
                 .toList();
     }
 
     public List<AnimalEntity> generateAnimalWithIntStreamAndParallel(int number) {
-        return IntStream.rangeClosed(0, number)
+        LocalDate today = LocalDate.now(clock);
+        return IntStream.range(0, number)
                 .parallel()
-                .mapToObj(i -> mapper.toEntity(generateAnimalThreadSafe()))
+                .mapToObj(i -> generateAnimal(ThreadLocalRandom.current(), today))
                 .toList();
     }
 
-    private Animal generateAnimal() {
-        Random random = new Random();
-        Animal animal = getAnimal(random);
-        animal.setName(getAnimalName(random));
-        return animal;
-    }
-
-    private Animal generateAnimalThreadSafe() {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        Animal animal = getAnimal(random);
-        animal.setName(getAnimalName(random));
-        return animal;
-    }
-
-    private Animal getAnimal(Random random) {
-        return switch (random.nextInt(3)) {
-            case 0 -> new Cat();
-            case 1 -> new Dog();
-            default -> new Animal();
-        };
-    }
-
-    private String getAnimalName(Random random) {
-        List<String> names = Arrays.asList("Shadow", "Charlie", "Max", "Coco", "Bailey", "Lucky");
-        return names.get(random.nextInt(names.size()));
+    /**
+     * An animal born today, built as an entity from the rules of its species, without a model to map.
+     */
+    private AnimalEntity generateAnimal(Random random, LocalDate today) {
+        var rules = speciesRegistry.get(TYPES[random.nextInt(TYPES.length)]);
+        return AnimalEntity.builder()
+                .name(NAMES[random.nextInt(NAMES.length)])
+                .birthday(today)
+                .age(0)
+                .ageInHumanYears(rules.humanYears(0))
+                .type(rules.type())
+                .diet(rules.defaultDiet())
+                .gender(AnimalGenderEnum.UNKNOWN)
+                .build();
     }
 
 }
@@ -0,0 +1,117 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.AnimalAges;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Ages in years and in human years, in closed form. Today is read from the {@link Clock} once and
+ * kept until the next midnight of the clock zone, so a call costs a clock read and integer math.
+ * The results are the same as {@code Period.between(birthday, today).getYears()}.
+ */
+@Component
+public class AgeCalculator {
+
+    private final Clock clock;
+    private volatile Today today;
+
+    /**
+     * Today split in the fields the age needs, valid from {@code midnight} until {@code nextMidnight} (epoch millis).
+     */
+    private record Today(int epochDay, int year, int monthDay, long midnight, long nextMidnight) {
+    }
+
+    public AgeCalculator(Clock clock) {
+        this.clock = clock;
+        this.today = snapshot();
+    }
+
+    /**
+     * Full years from the birthday to today, negative for a birthday in the future.
+     */
+    public int years(LocalDate birthday) {
+        Today now = today();
+        return years(birthday.getYear(), AnimalAges.monthDay(birthday.getMonthValue(), birthday.getDayOfMonth()), birthday.toEpochDay(), now);
+    }
+
+    /**
+     * Days from the birthday to today, negative for a birthday in the future.
+     */
+    public int days(LocalDate birthday) {
+        return today().epochDay() - (int) birthday.toEpochDay();
+    }
+
+    /**
+     * Ages of many animals at once, without creating an object per animal. Both output arrays
+     * are filled at the index of the birthday.
+     *
+     * @param birthdays        the birthdays as {@link LocalDate#toEpochDay()}
+     * @param rules            the species rules of each animal, from the {@link SpeciesRegistry}
+     * @param ages             receives the age in years
+     * @param agesInHumanYears receives the age in human years
+     */
+    public void ages(int[] birthdays, ISpeciesRules[] rules, int[] ages, int[] agesInHumanYears) {
+        if (rules.length < birthdays.length || ages.length < birthdays.length || agesInHumanYears.length < birthdays.length) {
+            throw new IllegalArgumentException("Every array must have at least " + birthdays.length + " positions");
+        }
+        Today now = today();
+        for (int i = 0; i < birthdays.length; i++) {
+            int epochDay = birthdays[i];
+            int date = civil(epochDay);
+            int years = years(date >> 9, date & 0x1FF, epochDay, now);
+            ages[i] = years;
+            agesInHumanYears[i] = rules[i].humanYears(years);
+        }
+    }
+
+    private Today today() {
+        Today now = today;
+        long millis = clock.millis();
+        // Also when the clock was set back to an earlier day
+        if (millis >= now.nextMidnight() || millis < now.midnight()) {
+            // Racing threads build the same snapshot, any of them may win
+            now = snapshot();
+            today = now;
+        }
+        return now;
+    }
+
+    private Today snapshot() {
+        LocalDate date = LocalDate.now(clock);
+        long midnight = date.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        long nextMidnight = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        return new Today((int) date.toEpochDay(), date.getYear(), AnimalAges.monthDay(date.getMonthValue(), date.getDayOfMonth()), midnight, nextMidnight);
+    }
+
+    private static int years(int year, int monthDay, long epochDay, Today today) {
+        return AnimalAges.years(year, monthDay, epochDay, today.year(), today.monthDay(), today.epochDay());
+    }
+
+    /**
+     * Year of an epoch day, without creating a LocalDate.
+     */
+    public static int year(int epochDay) {
+        return civil(epochDay) >> 9;
+    }
+
+    /**
+     * Year, month and day of an epoch day without LocalDate, packed as {@code year << 9 | month << 5 | day}.
+     * It's the days-to-civil algorithm of the proleptic Gregorian calendar, with years starting in March.
+     */
+    private static int civil(int epochDay) {
+        int z = epochDay + 719_468;
+        int era = Math.floorDiv(z, 146_097);
+        int dayOfEra = z - era * 146_097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | AnimalAges.monthDay(month, day);
+    }
+
+}
@@ -0,0 +1,245 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.AgeRefreshProperties;
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.entities.AgeRefreshCheckpointEntity;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.AnimalBirthday;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.repositories.AgeRefreshCheckpointRepository;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the stored ages current. Every night only the animals with a birthday anniversary since
+ * the last run are read, through the birthday_month_day index, and their ages are written in
+ * chunks of batched UPDATEs spread over a thread pool. The progress is checkpointed in the
+ * database after every group of chunks, a run stopped by a restart resumes from the last id.
+ * The checkpoint is versioned, an instance whose save loses against another one stops its run.
+ */
+@Slf4j
+@Component
+public class AgeRefreshJob {
+
+    static final String JOB = "animal-age";
+
+    private final AnimalRepository repository;
+    private final AgeRefreshCheckpointRepository checkpointRepository;
+    private final AgeCalculator ageCalculator;
+    private final SpeciesRegistry speciesRegistry;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AgeRefreshProperties properties;
+    private final Clock clock;
+
+    private final Timer duration;
+    private final Counter updatedCounter;
+    private final AtomicLong progress = new AtomicLong();
+    private volatile LocalDate refreshedUntil;
+
+    public AgeRefreshJob(AnimalRepository repository, AgeRefreshCheckpointRepository checkpointRepository,
+                         AgeCalculator ageCalculator, SpeciesRegistry speciesRegistry, CacheManager cacheManager, ApplicationEventPublisher eventPublisher,
+                         AgeRefreshProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.checkpointRepository = checkpointRepository;
+        this.ageCalculator = ageCalculator;
+        this.speciesRegistry = speciesRegistry;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.clock = clock;
+
+        this.duration = Timer.builder("animal.age.refresh.duration")
+                .description("Time of the age refresh runs")
+                .register(meterRegistry);
+        this.updatedCounter = Counter.builder("animal.age.refresh.updated")
+                .description("Animals whose ages were refreshed")
+                .register(meterRegistry);
+        Gauge.builder("animal.age.refresh.progress", progress, AtomicLong::get)
+                .description("Animals refreshed by the current or last run")
+                .register(meterRegistry);
+        Gauge.builder("animal.age.refresh.lag", this, AgeRefreshJob::lagDays)
+                .baseUnit("days")
+                .description("Days since the last day whose anniversaries were all refreshed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Catches up after a restart, the anniversaries of the days the application was down included.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) refresh();
+    }
+
+    @Scheduled(cron = "${app.animal.age-refresh.cron:0 5 0 * * *}")
+    public void onSchedule() {
+        if (properties.isEnabled()) refresh();
+    }
+
+    /**
+     * Refreshes the ages of every anniversary up to today, resuming an interrupted run first.
+     * The first run ever refreshes every animal.
+     *
+     * @return the number of updated animals
+     */
+    public synchronized long refresh() {
+        Timer.Sample sample = Timer.start();
+        progress.set(0);
+        var checkpoint = checkpointRepository.findById(JOB)
+                .orElseGet(() -> new AgeRefreshCheckpointEntity(JOB, null, null, 0, null));
+        refreshedUntil = checkpoint.getRefreshedUntil();
+        LocalDate today = LocalDate.now(clock);
+
+        try {
+            while (checkpoint.getTarget() != null || checkpoint.getRefreshedUntil() == null || checkpoint.getRefreshedUntil().isBefore(today)) {
+                if (checkpoint.getTarget() == null) {
+                    checkpoint.setTarget(today);
+                    checkpoint.setLastId(0);
+                } else {
+                    log.info("[AgeRefreshJob] Resuming the run of {} after id {}", checkpoint.getTarget(), checkpoint.getLastId());
+                }
+                // Claims the run before updating anything, another instance's next save fails
+                save(checkpoint);
+                refresh(checkpoint, anniversaries(checkpoint.getRefreshedUntil(), checkpoint.getTarget()));
+
+                checkpoint.setRefreshedUntil(checkpoint.getTarget());
+                checkpoint.setTarget(null);
+                checkpoint.setLastId(0);
+                save(checkpoint);
+                refreshedUntil = checkpoint.getRefreshedUntil();
+            }
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // The first save of two instances is a duplicate key, the next ones a version conflict
+            log.info("[AgeRefreshJob] Another instance took over the refresh, stopping this run after {} animals", progress.get());
+        }
+
+        // Also the chunks written before a conflict
+        long updated = progress.get();
+
+        if (updated > 0) {
+            // The scheduler calls this method on the instance itself, so a @CacheEvict would be skipped
+            cacheManager.getCache(CacheConfig.ANIMAL).clear();
+            // The cached lists, the type index and the ETags hold the old ages
+            eventPublisher.publishEvent(AnimalChangedEvent.bulk());
+        }
+        long nanos = sample.stop(duration);
+        log.info("[AgeRefreshJob] Refreshed {} animals until {} in {} ms", updated, refreshedUntil, nanos / 1_000_000);
+        return updated;
+    }
+
+    /**
+     * Birthdays whose anniversary fell after {@code from} until {@code to}, as {@code month * 100 + day}.
+     * A 29 February birthday turns a year older on 1 March of the other years.
+     *
+     * @return the month-days, null for every animal when {@code from} is null or a year or more before
+     */
+    static TreeSet<Integer> anniversaries(LocalDate from, LocalDate to) {
+        if (from == null || !from.plusYears(1).isAfter(to)) return null;
+        var monthDays = new TreeSet<Integer>();
+        for (LocalDate day = from.plusDays(1); !day.isAfter(to); day = day.plusDays(1)) {
+            monthDays.add(day.getMonthValue() * 100 + day.getDayOfMonth());
+            if (day.getMonthValue() == 3 && day.getDayOfMonth() == 1 && !day.isLeapYear()) monthDays.add(229);
+        }
+        return monthDays;
+    }
+
+    private void refresh(AgeRefreshCheckpointEntity checkpoint, TreeSet<Integer> monthDays) {
+        if (monthDays != null && monthDays.isEmpty()) return;
+        int parallelism = Math.max(1, properties.getParallelism());
+        Limit chunk = Limit.of(Math.max(1, properties.getChunkSize()));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            boolean more = true;
+            while (more) {
+                // Reads a chunk per thread on this one, then waits for the whole group before the checkpoint
+                List<Future<Integer>> group = new ArrayList<>(parallelism);
+                int lastId = checkpoint.getLastId();
+                for (int i = 0; i < parallelism && more; i++) {
+                    var animals = monthDays == null
+                            ? repository.findBirthdaysAfter(lastId, chunk)
+                            : repository.findBirthdaysAfter(monthDays, lastId, chunk);
+                    more = animals.size() == chunk.max();
+                    if (animals.isEmpty()) break;
+                    lastId = animals.get(animals.size() - 1).getId();
+                    group.add(executor.submit(() -> update(animals)));
+                }
+                for (Future<Integer> future : group) {
+                    await(future);
+                }
+                checkpoint.setLastId(lastId);
+                save(checkpoint);
+            }
+        }
+    }
+
+    /**
+     * Saves the checkpoint if nobody else saved it since it was read, and keeps its new version.
+     */
+    private void save(AgeRefreshCheckpointEntity checkpoint) {
+        checkpoint.setVersion(checkpointRepository.save(checkpoint).getVersion());
+    }
+
+    private int update(List<AnimalBirthday> animals) {
+        int size = animals.size();
+        int[] birthdays = new int[size];
+        ISpeciesRules[] rules = new ISpeciesRules[size];
+        for (int i = 0; i < size; i++) {
+            birthdays[i] = (int) animals.get(i).getBirthday().toEpochDay();
+            rules[i] = speciesRegistry.get(animals.get(i).getType());
+        }
+        int[] ages = new int[size];
+        int[] agesInHumanYears = new int[size];
+        ageCalculator.ages(birthdays, rules, ages, agesInHumanYears);
+
+        int updated = repository.updateAges(animals, ages, agesInHumanYears);
+        progress.addAndGet(updated);
+        updatedCounter.increment(updated);
+        return updated;
+    }
+
+    private static void await(Future<Integer> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Age refresh interrupted", e);
+        } catch (ExecutionException e) {
+            // The checkpoint keeps the last complete group, the next run starts over from it
+            throw new IllegalStateException("Age refresh failed", e.getCause());
+        }
+    }
+
+    private double lagDays() {
+        var until = refreshedUntil;
+        return until == null ? Double.NaN : ChronoUnit.DAYS.between(until, LocalDate.now(clock));
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the whole animal collection, incremented after every write, local or remote.
+ * The list endpoints send it as their ETag and answer a matching If-None-Match with 304
+ * before reading anything.
+ */
+@Component
+public class AnimalCollectionVersion {
+
+    // Another start or instance counts from zero again, its ETags must not match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    @EventListener
+    public void onAnimalChanged(AnimalChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * Read it before the data, a write in between then only makes the ETag older than the body.
+     */
+    public String eTag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+}
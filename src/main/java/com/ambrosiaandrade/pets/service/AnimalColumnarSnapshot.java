@@ -0,0 +1,146 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory columnar copy of the animal table for analytic scans, see {@link AnimalColumns}.
+ * Like {@link AnimalTypeIndex} it's loaded when the application is ready and follows the
+ * {@link AnimalChangedEvent}s. Scans share a read lock, so a change waits for the running
+ * scans and is applied in place, a bulk change loads a new copy while the old one keeps serving.
+ */
+@Slf4j
+@Component
+public class AnimalColumnarSnapshot {
+
+    static final int LOAD_CHUNK_SIZE = 10_000;
+
+    private final AnimalRepository repository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Null until loaded
+    private volatile AnimalColumns columns;
+    private volatile long lastSyncMillis;
+
+    public AnimalColumnarSnapshot(AnimalRepository repository, MeterRegistry meterRegistry,
+                                  @Value("${app.animal.columnar.enabled:false}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+
+        Gauge.builder("animal.columnar.rows", this, snapshot -> snapshot.measure(AnimalColumns::rows))
+                .description("Animals held by the columnar snapshot")
+                .register(meterRegistry);
+        Gauge.builder("animal.columnar.size", this, snapshot -> snapshot.measure(AnimalColumns::bytes))
+                .baseUnit("bytes")
+                .description("Approximate heap used by the columnar snapshot")
+                .register(meterRegistry);
+        Gauge.builder("animal.columnar.staleness", this, AnimalColumnarSnapshot::stalenessSeconds)
+                .baseUnit("seconds")
+                .description("Time since the columnar snapshot was last loaded or changed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) rebuild();
+    }
+
+    /**
+     * Loads every animal in chunks by id into new columns, then replaces the current ones.
+     */
+    public synchronized void rebuild() {
+        var current = columns;
+        var fresh = new AnimalColumns(current == null ? LOAD_CHUNK_SIZE : current.rows());
+        Limit chunk = Limit.of(LOAD_CHUNK_SIZE);
+        int lastId = Integer.MIN_VALUE;
+        List<Animal> animals;
+        do {
+            animals = repository.findModelsAfter(lastId, chunk);
+            animals.forEach(fresh::put);
+            if (!animals.isEmpty()) lastId = animals.get(animals.size() - 1).getId();
+        } while (animals.size() == LOAD_CHUNK_SIZE);
+        fresh.trim();
+
+        // Scans of the old columns finish on them, nothing changes them anymore
+        columns = fresh;
+        lastSyncMillis = System.currentTimeMillis();
+        log.info("[AnimalColumnarSnapshot] Loaded {} animals in {} KB", fresh.rows(), fresh.bytes() / 1024);
+    }
+
+    @EventListener
+    public synchronized void onAnimalChanged(AnimalChangedEvent event) {
+        var current = columns;
+        // Not loaded yet (or disabled), the load reads the change from the database anyway
+        if (current == null) return;
+
+        if (event.getChange() == AnimalChangeEnum.BULK) {
+            rebuild();
+            return;
+        }
+        List<Animal> animals = switch (event.getChange()) {
+            case SAVED, UPDATED -> event.getAnimals() != null ? event.getAnimals() : repository.findModelsByIds(event.getIds());
+            default -> List.of();
+        };
+        lock.writeLock().lock();
+        try {
+            // An updated id the database no longer has was deleted meanwhile
+            event.getIds().forEach(current::remove);
+            animals.forEach(current::put);
+            current.compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Counts and ages of the animals matching the search, by group, scanned on every core.
+     *
+     * @return empty while the snapshot isn't loaded
+     */
+    public Optional<AnimalAnalytics> analyze(AnimalSearch search, AnimalGroupByEnum groupBy) {
+        lock.readLock().lock();
+        try {
+            var current = columns;
+            if (current == null) return Optional.empty();
+            return Optional.of(current.aggregate(search, groupBy));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double measure(ToLongFunction<AnimalColumns> measure) {
+        lock.readLock().lock();
+        try {
+            var current = columns;
+            return current == null ? Double.NaN : measure.applyAsLong(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double stalenessSeconds() {
+        return columns == null ? Double.NaN : (System.currentTimeMillis() - lastSyncMillis) / 1000.0;
+    }
+
+}
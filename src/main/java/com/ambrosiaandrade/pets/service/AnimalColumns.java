@@ -0,0 +1,372 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * The animal table as one primitive array per column, a position per row ordered by id. Enums are
+ * kept as their ordinal in a byte, the birthday as an epoch day and the name as a code of a
+ * dictionary, so a row takes 23 bytes. Deleted rows are marked in the type column until the next
+ * compaction. Not thread-safe, {@link AnimalColumnarSnapshot} guards it.
+ */
+final class AnimalColumns {
+
+    static final int CHUNK_ROWS = 1 << 16;
+
+    private static final AnimalTypeEnum[] TYPES = AnimalTypeEnum.values();
+    private static final AnimalDietEnum[] DIETS = AnimalDietEnum.values();
+    private static final AnimalGenderEnum[] GENDERS = AnimalGenderEnum.values();
+    private static final byte NULL = -1;
+    private static final byte REMOVED = -2;
+    private static final int NULL_DAY = Integer.MIN_VALUE;
+    private static final int NULL_NAME = -1;
+    private static final int ANY = Integer.MIN_VALUE;
+
+    private int size;
+    private int removed;
+    private int[] ids;
+    private byte[] types;
+    private byte[] diets;
+    private byte[] genders;
+    private int[] ages;
+    private int[] agesInHumanYears;
+    private int[] birthdays;
+    private int[] names;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private long dictionaryBytes;
+
+    // Bounds of the age and birth year groups, they only widen
+    private int minAge = Integer.MAX_VALUE;
+    private int maxAge = Integer.MIN_VALUE;
+    private int minYear = Integer.MAX_VALUE;
+    private int maxYear = Integer.MIN_VALUE;
+
+    AnimalColumns(int capacity) {
+        resize(Math.max(capacity, 16));
+    }
+
+    int rows() {
+        return size - removed;
+    }
+
+    /**
+     * Rough heap taken by the columns and the name dictionary.
+     */
+    long bytes() {
+        return (long) ids.length * (5 * Integer.BYTES + 3) + dictionaryBytes;
+    }
+
+    /**
+     * Adds the animal or overwrites the row with its id.
+     */
+    void put(Animal animal) {
+        int row = Arrays.binarySearch(ids, 0, size, animal.getId());
+        if (row < 0) {
+            row = -row - 1;
+            if (size == ids.length) resize(size + (size >> 1));
+            // Ids come from a sequence, a row lands before the end only when the ranges of two instances interleave
+            if (row < size) shift(row);
+            ids[row] = animal.getId();
+            size++;
+        } else if (types[row] == REMOVED) {
+            removed--;
+        }
+
+        types[row] = ordinal(animal.getType());
+        diets[row] = ordinal(animal.getDiet());
+        genders[row] = ordinal(animal.getGender());
+        ages[row] = animal.getAge();
+        agesInHumanYears[row] = animal.getAgeInHumanYears();
+        names[row] = code(animal.getName());
+        minAge = Math.min(minAge, animal.getAge());
+        maxAge = Math.max(maxAge, animal.getAge());
+        if (animal.getBirthday() == null) {
+            birthdays[row] = NULL_DAY;
+        } else {
+            int day = (int) animal.getBirthday().toEpochDay();
+            int year = AgeCalculator.year(day);
+            birthdays[row] = day;
+            minYear = Math.min(minYear, year);
+            maxYear = Math.max(maxYear, year);
+        }
+    }
+
+    /**
+     * @return whether a row had the id
+     */
+    boolean remove(int id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0 || types[row] == REMOVED) return false;
+        types[row] = REMOVED;
+        removed++;
+        return true;
+    }
+
+    /**
+     * Drops the removed rows once they are a quarter of the positions.
+     */
+    void compactIfNeeded() {
+        if (removed == 0 || removed < size / 4) return;
+        int target = 0;
+        for (int row = 0; row < size; row++) {
+            if (types[row] == REMOVED) continue;
+            if (target != row) {
+                ids[target] = ids[row];
+                types[target] = types[row];
+                diets[target] = diets[row];
+                genders[target] = genders[row];
+                ages[target] = ages[row];
+                agesInHumanYears[target] = agesInHumanYears[row];
+                birthdays[target] = birthdays[row];
+                names[target] = names[row];
+            }
+            target++;
+        }
+        size = target;
+        removed = 0;
+    }
+
+    /**
+     * Gives back the capacity left over by the load.
+     */
+    void trim() {
+        if (ids.length > size) resize(Math.max(size, 16));
+    }
+
+    /**
+     * Filters and aggregates every row. The rows are split in chunks of {@value #CHUNK_ROWS}
+     * scanned in parallel, each into its own partial aggregates, which are merged at the end.
+     */
+    AnimalAnalytics aggregate(AnimalSearch search, AnimalGroupByEnum groupBy) {
+        var filter = filter(search);
+        int groups = groups(groupBy);
+        int rows = size;
+        int chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        Partial total = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> scan(chunk * CHUNK_ROWS, Math.min(rows, (chunk + 1) * CHUNK_ROWS), filter, groupBy, groups))
+                .reduce(Partial::merge)
+                .orElseGet(() -> new Partial(groups));
+        return result(total, groupBy);
+    }
+
+    private Partial scan(int from, int to, Filter filter, AnimalGroupByEnum groupBy, int groups) {
+        var partial = new Partial(groups);
+        for (int row = from; row < to; row++) {
+            if (types[row] == REMOVED || !matches(row, filter)) continue;
+            partial.add(key(row, groupBy, groups), ages[row], agesInHumanYears[row]);
+        }
+        return partial;
+    }
+
+    /**
+     * The criteria as primitives, the name prefix is matched once per dictionary entry instead of once per row.
+     */
+    private record Filter(int type, int diet, int gender, int minAge, int maxAge, int minAgeInHumanYears,
+                          int maxAgeInHumanYears, boolean birthday, int bornFrom, int bornTo, boolean[] names) {
+    }
+
+    private Filter filter(AnimalSearch search) {
+        boolean[] nameMatches = null;
+        if (search.getName() != null && !search.getName().isEmpty()) {
+            nameMatches = new boolean[dictionary.size()];
+            for (int code = 0; code < nameMatches.length; code++) {
+                nameMatches[code] = dictionary.get(code).startsWith(search.getName());
+            }
+        }
+        return new Filter(
+                search.getType() == null ? ANY : search.getType().ordinal(),
+                search.getDiet() == null ? ANY : search.getDiet().ordinal(),
+                search.getGender() == null ? ANY : search.getGender().ordinal(),
+                search.getMinAge() == null ? Integer.MIN_VALUE : search.getMinAge(),
+                search.getMaxAge() == null ? Integer.MAX_VALUE : search.getMaxAge(),
+                search.getMinAgeInHumanYears() == null ? Integer.MIN_VALUE : search.getMinAgeInHumanYears(),
+                search.getMaxAgeInHumanYears() == null ? Integer.MAX_VALUE : search.getMaxAgeInHumanYears(),
+                search.getBornFrom() != null || search.getBornTo() != null,
+                search.getBornFrom() == null ? Integer.MIN_VALUE : (int) search.getBornFrom().toEpochDay(),
+                search.getBornTo() == null ? Integer.MAX_VALUE : (int) search.getBornTo().toEpochDay(),
+                nameMatches);
+    }
+
+    private boolean matches(int row, Filter filter) {
+        if (filter.type() != ANY && types[row] != filter.type()) return false;
+        if (filter.diet() != ANY && diets[row] != filter.diet()) return false;
+        if (filter.gender() != ANY && genders[row] != filter.gender()) return false;
+        int age = ages[row];
+        if (age < filter.minAge() || age > filter.maxAge()) return false;
+        int ageInHumanYears = agesInHumanYears[row];
+        if (ageInHumanYears < filter.minAgeInHumanYears() || ageInHumanYears > filter.maxAgeInHumanYears()) return false;
+        if (filter.birthday()) {
+            int day = birthdays[row];
+            if (day == NULL_DAY || day < filter.bornFrom() || day > filter.bornTo()) return false;
+        }
+        if (filter.names() != null) {
+            int name = names[row];
+            return name != NULL_NAME && filter.names()[name];
+        }
+        return true;
+    }
+
+    /**
+     * Number of groups of the dimension, the last one holds the rows without a value.
+     */
+    private int groups(AnimalGroupByEnum groupBy) {
+        return switch (groupBy) {
+            case NONE -> 1;
+            case TYPE -> TYPES.length + 1;
+            case DIET -> DIETS.length + 1;
+            case GENDER -> GENDERS.length + 1;
+            case AGE -> maxAge < minAge ? 0 : maxAge - minAge + 1;
+            case BIRTH_YEAR -> (maxYear < minYear ? 0 : maxYear - minYear + 1) + 1;
+            case NAME -> dictionary.size() + 1;
+        };
+    }
+
+    private int key(int row, AnimalGroupByEnum groupBy, int groups) {
+        return switch (groupBy) {
+            case NONE -> 0;
+            case TYPE -> types[row] == NULL ? groups - 1 : types[row];
+            case DIET -> diets[row] == NULL ? groups - 1 : diets[row];
+            case GENDER -> genders[row] == NULL ? groups - 1 : genders[row];
+            case AGE -> ages[row] - minAge;
+            case BIRTH_YEAR -> birthdays[row] == NULL_DAY ? groups - 1 : AgeCalculator.year(birthdays[row]) - minYear;
+            case NAME -> names[row] == NULL_NAME ? groups - 1 : names[row];
+        };
+    }
+
+    private String label(int key, AnimalGroupByEnum groupBy, int groups) {
+        if (groupBy != AnimalGroupByEnum.NONE && groupBy != AnimalGroupByEnum.AGE && key == groups - 1) return "null";
+        return switch (groupBy) {
+            case NONE -> "all";
+            case TYPE -> TYPES[key].name();
+            case DIET -> DIETS[key].name();
+            case GENDER -> GENDERS[key].name();
+            case AGE -> String.valueOf(minAge + key);
+            case BIRTH_YEAR -> String.valueOf(minYear + key);
+            case NAME -> dictionary.get(key);
+        };
+    }
+
+    private AnimalAnalytics result(Partial partial, AnimalGroupByEnum groupBy) {
+        int groups = partial.counts.length;
+        Map<String, AnimalAnalytics.Group> result = groupBy == AnimalGroupByEnum.NAME ? new TreeMap<>() : new LinkedHashMap<>();
+        long total = 0;
+        for (int key = 0; key < groups; key++) {
+            long count = partial.counts[key];
+            if (count == 0) continue;
+            total += count;
+            result.put(label(key, groupBy, groups), new AnimalAnalytics.Group(count, partial.minAges[key], partial.maxAges[key],
+                    (double) partial.ages[key] / count, (double) partial.agesInHumanYears[key] / count));
+        }
+        return new AnimalAnalytics(rows(), total, groupBy, result);
+    }
+
+    /**
+     * Aggregates of one chunk, an array position per group.
+     */
+    private static final class Partial {
+
+        private final long[] counts;
+        private final long[] ages;
+        private final long[] agesInHumanYears;
+        private final int[] minAges;
+        private final int[] maxAges;
+
+        private Partial(int groups) {
+            counts = new long[groups];
+            ages = new long[groups];
+            agesInHumanYears = new long[groups];
+            minAges = new int[groups];
+            maxAges = new int[groups];
+            Arrays.fill(minAges, Integer.MAX_VALUE);
+            Arrays.fill(maxAges, Integer.MIN_VALUE);
+        }
+
+        private void add(int key, int age, int ageInHumanYears) {
+            counts[key]++;
+            ages[key] += age;
+            agesInHumanYears[key] += ageInHumanYears;
+            if (age < minAges[key]) minAges[key] = age;
+            if (age > maxAges[key]) maxAges[key] = age;
+        }
+
+        private Partial merge(Partial other) {
+            for (int key = 0; key < counts.length; key++) {
+                counts[key] += other.counts[key];
+                ages[key] += other.ages[key];
+                agesInHumanYears[key] += other.agesInHumanYears[key];
+                minAges[key] = Math.min(minAges[key], other.minAges[key]);
+                maxAges[key] = Math.max(maxAges[key], other.maxAges[key]);
+            }
+            return this;
+        }
+
+    }
+
+    private int code(String name) {
+        if (name == null) return NULL_NAME;
+        Integer code = codes.get(name);
+        if (code != null) return code;
+        code = dictionary.size();
+        dictionary.add(name);
+        codes.put(name, code);
+        // The string, its array and the map entry
+        dictionaryBytes += 88 + name.length();
+        return code;
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? NULL : (byte) value.ordinal();
+    }
+
+    private void shift(int row) {
+        int length = size - row;
+        System.arraycopy(ids, row, ids, row + 1, length);
+        System.arraycopy(types, row, types, row + 1, length);
+        System.arraycopy(diets, row, diets, row + 1, length);
+        System.arraycopy(genders, row, genders, row + 1, length);
+        System.arraycopy(ages, row, ages, row + 1, length);
+        System.arraycopy(agesInHumanYears, row, agesInHumanYears, row + 1, length);
+        System.arraycopy(birthdays, row, birthdays, row + 1, length);
+        System.arraycopy(names, row, names, row + 1, length);
+    }
+
+    private void resize(int capacity) {
+        if (ids == null) {
+            ids = new int[capacity];
+            types = new byte[capacity];
+            diets = new byte[capacity];
+            genders = new byte[capacity];
+            ages = new int[capacity];
+            agesInHumanYears = new int[capacity];
+            birthdays = new int[capacity];
+            names = new int[capacity];
+            return;
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        diets = Arrays.copyOf(diets, capacity);
+        genders = Arrays.copyOf(genders, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        agesInHumanYears = Arrays.copyOf(agesInHumanYears, capacity);
+        birthdays = Arrays.copyOf(birthdays, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+
+}
@@ -0,0 +1,314 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.config.DatasetProperties;
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.enums.DatasetSinkEnum;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
+import com.ambrosiaandrade.pets.models.AnimalAges;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.DatasetResult;
+import com.ambrosiaandrade.pets.models.DatasetSpec;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic animals for load tests, drawn one at a time from a seeded generator and written as they
+ * are drawn: in insert chunks of {@code app.animal.dataset.chunk-size} or straight to a file. Only
+ * one chunk is in memory, so the size is bounded by {@code app.animal.dataset.max-rows} and not by
+ * {@code app.animal.limit}. Every run reports its rows per second.
+ */
+@Slf4j
+@Service
+public class AnimalDatasetGenerator {
+
+    static final String METRIC = "animal.dataset";
+    static final int MAX_AGE = 100;
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final String[] CSV_HEADER = {"name", "age", "age_in_human_years", "birthday", "type", "diet", "gender"};
+
+    private final AnimalRepository repository;
+    private final SpeciesRegistry speciesRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final DatasetProperties properties;
+    private final Clock clock;
+
+    public AnimalDatasetGenerator(AnimalRepository repository, SpeciesRegistry speciesRegistry, ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry, ObjectMapper objectMapper, DatasetProperties properties, Clock clock) {
+        this.repository = repository;
+        this.speciesRegistry = speciesRegistry;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Generates the dataset of the spec into its sink.
+     *
+     * @throws BaseException 400 for an invalid spec, 500 when the database or the file fails
+     */
+    @CacheEvict(value = {CacheConfig.ALL_DATA, CacheConfig.ANIMAL}, allEntries = true,
+            condition = "#spec.sink == null || #spec.sink == T(com.ambrosiaandrade.pets.enums.DatasetSinkEnum).DATABASE")
+    public DatasetResult generate(DatasetSpec spec) {
+        DatasetSinkEnum sink = spec.getSink() == null ? DatasetSinkEnum.DATABASE : spec.getSink();
+        if (sink == DatasetSinkEnum.DATABASE && spec.getToday() != null) {
+            // The stored ages are refreshed against the server clock, another today would be wrong until then
+            throw new BaseException("today can only be set for the file sinks", 400);
+        }
+        long seed = spec.getSeed() == null ? ThreadLocalRandom.current().nextLong(Long.MAX_VALUE) : spec.getSeed();
+        LocalDate today = spec.getToday() == null ? LocalDate.now(clock) : spec.getToday();
+        var rows = new Rows(spec, seed, today, speciesRegistry, properties.getMaxRows());
+
+        long start = System.nanoTime();
+        Path file = null;
+        if (sink == DatasetSinkEnum.DATABASE) {
+            insert(rows, spec.getRows());
+        } else {
+            file = write(rows, spec.getRows(), sink, properties.getDirectory().resolve("animals-" + seed + "-" + spec.getRows() + "." + sink.name().toLowerCase()));
+        }
+        long nanos = System.nanoTime() - start;
+
+        Timer.builder(METRIC)
+                .description("Time to generate and write a synthetic dataset")
+                .tag("sink", sink.name())
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder(METRIC + ".rows")
+                .description("Synthetic animals written")
+                .tag("sink", sink.name())
+                .register(meterRegistry)
+                .increment(spec.getRows());
+        long rowsPerSecond = spec.getRows() * 1_000_000_000L / Math.max(nanos, 1);
+        log.info(String.format("[dataset] Saved %s animals to %s in %s ms, %s rows/s, seed %s",
+                spec.getRows(), file == null ? sink : file, nanos / 1_000_000, rowsPerSecond, seed));
+        return new DatasetResult(sink, seed, today, spec.getRows(), nanos / 1_000_000, rowsPerSecond, file == null ? null : file.toString());
+    }
+
+    private void insert(Rows rows, int count) {
+        int saved = 0;
+        try {
+            var chunk = new ArrayList<AnimalEntity>(Math.min(properties.getChunkSize(), count));
+            while (saved < count) {
+                chunk.clear();
+                int size = Math.min(properties.getChunkSize(), count - saved);
+                for (int i = 0; i < size; i++) {
+                    chunk.add(rows.next());
+                }
+                // Each chunk commits on its own, a failure keeps the chunks before it
+                saved += repository.saveAllInBatches(chunk);
+            }
+        } catch (DataAccessException e) {
+            StackTraceElement stackTraceElement = e.getStackTrace()[0];
+            log.error(stackTraceElement.toString());
+            throw new BaseException(e.getMessage(), 500);
+        } finally {
+            if (saved > 0) eventPublisher.publishEvent(AnimalChangedEvent.bulk());
+        }
+    }
+
+    private Path write(Rows rows, int count, DatasetSinkEnum sink, Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                if (sink == DatasetSinkEnum.NDJSON) {
+                    writeNdjson(rows, count, writer);
+                } else {
+                    writeCsv(rows, count, writer);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            throw new BaseException("Could not write the dataset: " + e.getMessage(), 500);
+        }
+    }
+
+    /**
+     * One animal per line with the fields of {@code POST /animal/bulk}, so the file can be imported as is.
+     */
+    private void writeNdjson(Rows rows, int count, Writer writer) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+            json.setRootValueSeparator(new SerializedString("\n"));
+            for (int i = 0; i < count; i++) {
+                AnimalEntity animal = rows.next();
+                json.writeStartObject();
+                json.writeStringField("name", animal.getName());
+                json.writeNumberField("age", animal.getAge());
+                json.writeNumberField("ageInHumanYears", animal.getAgeInHumanYears());
+                json.writeStringField("birthday", animal.getBirthday().toString());
+                json.writeStringField("type", animal.getType().name());
+                json.writeStringField("diet", animal.getDiet().name());
+                json.writeStringField("gender", animal.getGender().name());
+                json.writeEndObject();
+            }
+            json.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Same columns as the CSV export.
+     */
+    private static void writeCsv(Rows rows, int count, Writer writer) throws IOException {
+        try (CSVWriter csvWriter = new CSVWriter(writer)) {
+            csvWriter.writeNext(CSV_HEADER);
+            for (int i = 0; i < count; i++) {
+                AnimalEntity animal = rows.next();
+                csvWriter.writeNext(new String[]{
+                        animal.getName(),
+                        String.valueOf(animal.getAge()),
+                        String.valueOf(animal.getAgeInHumanYears()),
+                        animal.getBirthday().toString(),
+                        animal.getType().name(),
+                        animal.getDiet().name(),
+                        animal.getGender().name()
+                });
+            }
+        }
+    }
+
+    /**
+     * The animals of a spec in a fixed order. Every field is drawn from the one seeded generator, always
+     * in the same sequence, and the weights are read in enum or name order, not in the order of the request.
+     */
+    private static final class Rows {
+
+        private final SplittableRandom random;
+        private final SpeciesRegistry speciesRegistry;
+        private final LocalDate today;
+        private final Weighted<AnimalTypeEnum> types;
+        private final Weighted<AnimalDietEnum> diets;
+        private final Weighted<AnimalGenderEnum> genders;
+        private final Weighted<String> names;
+        private final long oldestBirthday;
+        private final int birthdayDays;
+
+        Rows(DatasetSpec spec, long seed, LocalDate today, SpeciesRegistry speciesRegistry, int maxRows) {
+            if (spec.getRows() <= 0 || spec.getRows() > maxRows) {
+                throw new BaseException("rows must be between 1 and " + maxRows, 400);
+            }
+            if (spec.getMinAge() < 0 || spec.getMaxAge() > MAX_AGE || spec.getMinAge() > spec.getMaxAge()) {
+                throw new BaseException("ages must be between 0 and " + MAX_AGE + ", minAge up to maxAge", 400);
+            }
+            this.random = new SplittableRandom(seed);
+            this.speciesRegistry = speciesRegistry;
+            this.today = today;
+            this.types = Weighted.of("types", weights(AnimalTypeEnum.class, spec.getTypes()));
+            this.diets = spec.getDiets() == null ? null : Weighted.of("diets", weights(AnimalDietEnum.class, spec.getDiets()));
+            this.genders = Weighted.of("genders", weights(AnimalGenderEnum.class, spec.getGenders()));
+            this.names = Weighted.of("names", names(spec.getNames()));
+            // Born from the day after the (maxAge + 1)th birthday until the minAge-th one
+            this.oldestBirthday = today.minusYears(spec.getMaxAge() + 1L).plusDays(1).toEpochDay();
+            this.birthdayDays = (int) (today.minusYears(spec.getMinAge()).toEpochDay() - oldestBirthday + 1);
+        }
+
+        AnimalEntity next() {
+            var rules = speciesRegistry.get(types.next(random));
+            var birthday = LocalDate.ofEpochDay(oldestBirthday + random.nextInt(birthdayDays));
+            int age = AnimalAges.years(birthday, today);
+            String name = names.next(random);
+            AnimalDietEnum diet = diets == null ? rules.defaultDiet() : diets.next(random);
+            return AnimalEntity.builder()
+                    .name(name)
+                    .birthday(birthday)
+                    .age(age)
+                    .ageInHumanYears(rules.humanYears(age))
+                    .type(rules.type())
+                    .diet(diet)
+                    .gender(genders.next(random))
+                    .build();
+        }
+
+        /**
+         * The weights in enum order, every value with the same weight when null.
+         */
+        private static <T extends Enum<T>> Map<T, Integer> weights(Class<T> type, Map<T, Integer> weights) {
+            var sorted = new EnumMap<T, Integer>(type);
+            if (weights == null) {
+                for (T value : type.getEnumConstants()) sorted.put(value, 1);
+            } else {
+                sorted.putAll(weights);
+            }
+            return sorted;
+        }
+
+        private static Map<String, Integer> names(Map<String, Integer> names) {
+            var weights = new TreeMap<String, Integer>();
+            if (names == null) {
+                for (String name : AdvanceUtil.NAMES) weights.put(name, 1);
+                return weights;
+            }
+            names.forEach((name, weight) -> {
+                if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH) {
+                    throw new BaseException("names must have from 1 to " + MAX_NAME_LENGTH + " characters", 400);
+                }
+                weights.put(AnimalNameDictionary.intern(name), weight);
+            });
+            return weights;
+        }
+
+    }
+
+    /**
+     * Values drawn in proportion to their weights, by a binary search of a random number over the running sums.
+     */
+    private record Weighted<T>(List<T> values, long[] sums) {
+
+        static <T> Weighted<T> of(String dimension, Map<T, Integer> weights) {
+            var values = new ArrayList<T>();
+            var sums = new long[weights.size()];
+            long total = 0;
+            for (var entry : weights.entrySet()) {
+                Integer weight = entry.getValue();
+                if (weight == null || weight < 0) throw new BaseException("weights of " + dimension + " can't be negative", 400);
+                // Equal sums would break the search, a value that can't be drawn is left out
+                if (weight == 0) continue;
+                total += weight;
+                sums[values.size()] = total;
+                values.add(entry.getKey());
+            }
+            if (values.isEmpty()) throw new BaseException(dimension + " need a positive weight", 400);
+            return new Weighted<>(values, Arrays.copyOf(sums, values.size()));
+        }
+
+        T next(SplittableRandom random) {
+            int i = Arrays.binarySearch(sums, random.nextLong(sums[sums.length - 1]));
+            return values.get(i < 0 ? -i - 1 : i + 1);
+        }
+
+    }
+
+}
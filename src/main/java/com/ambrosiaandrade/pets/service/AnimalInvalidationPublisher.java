@@ -0,0 +1,59 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.KafkaProperties;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalInvalidation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends the local animal changes to the invalidation topic, the other instances evict their caches
+ * when they read it (see {@link com.ambrosiaandrade.pets.listener.AnimalInvalidationListener}).
+ */
+@Slf4j
+@Profile("dev")
+@Service
+public class AnimalInvalidationPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public AnimalInvalidationPublisher(KafkaTemplate<String, String> kafkaTemplate, KafkaProperties properties, ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    public void onAnimalChanged(AnimalChangedEvent event) {
+        // Changes received from the topic aren't sent back
+        if (event.isRemote()) return;
+
+        var versions = event.getAnimals() == null ? null : event.getAnimals().stream().map(Animal::getVersion).toList();
+        var invalidation = new AnimalInvalidation(properties.getInstanceId(), event.getChange(), event.getIds(), versions);
+        String message;
+        try {
+            message = objectMapper.writeValueAsString(invalidation);
+        } catch (JsonProcessingException e) {
+            log.error("[AnimalInvalidation] Failed to serialize {}", invalidation, e);
+            return;
+        }
+
+        // Single id changes are keyed by the id, so the changes of one animal keep their order
+        String key = event.getIds() != null && event.getIds().size() == 1 ? event.getIds().get(0).toString() : null;
+        kafkaTemplate.send(properties.getInvalidationTopic(), key, message)
+                .exceptionally(ex -> {
+                    // The other instances still drop the entries when their TTL ends
+                    log.error("[AnimalInvalidation] Failed to send: {}", message, ex);
+                    return null;
+                });
+    }
+
+}
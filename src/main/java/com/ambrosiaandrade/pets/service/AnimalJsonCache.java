@@ -0,0 +1,53 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.EncodedJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * JSON of the animal lists, serialized once per collection version. A hit costs
+ * a copy of the bytes to the response instead of running Jackson over every animal.
+ */
+@Slf4j
+@Service
+public class AnimalJsonCache {
+
+    private final AdvanceService advanceService;
+    private final ObjectMapper objectMapper;
+
+    public AnimalJsonCache(AdvanceService advanceService, ObjectMapper objectMapper) {
+        this.advanceService = advanceService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Same body as {@link AdvanceService#getDataNoPaginationButWithCache()}, with the mapper of the MVC converters.
+     */
+    @Cacheable(value = CacheConfig.ALL_DATA_JSON, key = "@animalCollectionVersion.get()")
+    public EncodedJson getDataNoPagination() {
+        try {
+            return new EncodedJson(objectMapper.writeValueAsBytes(advanceService.getDataNoPaginationButWithCache()));
+        } catch (JsonProcessingException e) {
+            log.error("[AnimalJsonCache] Failed to serialize the animals", e);
+            throw new BaseException(e.getMessage(), 500);
+        }
+    }
+
+    /**
+     * The entries of older versions are never read again.
+     */
+    @EventListener
+    @CacheEvict(value = CacheConfig.ALL_DATA_JSON, allEntries = true)
+    public void onAnimalChanged(AnimalChangedEvent event) {
+        log.debug("[AnimalJsonCache] Evicted after {}", event.getChange());
+    }
+
+}
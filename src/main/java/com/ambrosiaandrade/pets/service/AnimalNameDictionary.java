@@ -0,0 +1,42 @@
+package com.ambrosiaandrade.pets.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One shared instance per distinct animal name. Names repeat a lot, so a list of a million animals
+ * read from the database or imported would otherwise hold a million copies of a few strings.
+ * A map is used instead of {@link String#intern()} to keep the lookup in Java and bounded.
+ */
+public final class AnimalNameDictionary {
+
+    /**
+     * Distinct names kept, once full the new names aren't shared but the known ones still are.
+     */
+    static final int MAX_NAMES = 100_000;
+    /**
+     * Longer values are unlikely to repeat, the column allows 50 characters anyway.
+     */
+    static final int MAX_LENGTH = 64;
+
+    private static final ConcurrentHashMap<String, String> NAMES = new ConcurrentHashMap<>();
+
+    private AnimalNameDictionary() {
+    }
+
+    /**
+     * @return the shared instance equal to the name, or the name itself the first time it's seen
+     */
+    public static String intern(String name) {
+        if (name == null || name.length() > MAX_LENGTH) return name;
+        String shared = NAMES.get(name);
+        if (shared != null) return shared;
+        if (NAMES.size() >= MAX_NAMES) return name;
+        shared = NAMES.putIfAbsent(name, name);
+        return shared != null ? shared : name;
+    }
+
+    public static int size() {
+        return NAMES.size();
+    }
+
+}
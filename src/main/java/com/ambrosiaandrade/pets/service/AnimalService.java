@@ -1,21 +1,40 @@
 package com.ambrosiaandrade.pets.service;
 
+import com.ambrosiaandrade.pets.config.CacheConfig;
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
 import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
 import com.ambrosiaandrade.pets.exceptions.BaseException;
 import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
 import com.ambrosiaandrade.pets.models.Animal;
-import com.ambrosiaandrade.pets.models.Cat;
-import com.ambrosiaandrade.pets.models.Dog;
+import com.ambrosiaandrade.pets.models.AnimalBulkUpdate;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.AnimalStats;
+import com.ambrosiaandrade.pets.models.BulkResult;
 import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -23,22 +42,42 @@ public class AnimalService {
 
     private final AnimalRepository animalRepository;
     private final IAnimalMapper animalMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AnimalTypeIndex typeIndex;
+    private final AgeCalculator ageCalculator;
+    private final SpeciesRegistry speciesRegistry;
+    private final CacheManager cacheManager;
+
+    @Value("${app.animal.bulk.chunk-size:500}")
+    private int bulkChunkSize;
 
     /**
      * Dependency injection using constructor is preferred for better testability and immutability.
      * An alternative, but not recommended, would be by attribute with @Autowired annotation,
      * */
-    public AnimalService(AnimalRepository animalRepository, IAnimalMapper mapper) {
+    public AnimalService(AnimalRepository animalRepository, IAnimalMapper mapper,
+                         ApplicationEventPublisher eventPublisher, AnimalTypeIndex typeIndex, AgeCalculator ageCalculator,
+                         SpeciesRegistry speciesRegistry, CacheManager cacheManager) {
         this.animalRepository = animalRepository;
         this.animalMapper = mapper;
+        this.eventPublisher = eventPublisher;
+        this.typeIndex = typeIndex;
+        this.ageCalculator = ageCalculator;
+        this.speciesRegistry = speciesRegistry;
+        this.cacheManager = cacheManager;
     }
 
+    @Caching(
+            evict = @CacheEvict(value = CacheConfig.ALL_DATA, allEntries = true),
+            put = @CachePut(value = CacheConfig.ANIMAL, key = "#result.id"))
     public Animal saveAnimal(Animal animal) {
+        String error = handleEmptyFields(animal);
+        if (error != null) throw new BaseException(error, 400);
         try {
-            handleEmptyFields(animal);
             AnimalEntity entity = animalMapper.toEntity(animal);
-            var savedAnimal = animalRepository.save(entity);
-            return animalMapper.toModel(savedAnimal);
+            var savedAnimal = animalMapper.toModel(animalRepository.save(entity));
+            eventPublisher.publishEvent(AnimalChangedEvent.saved(List.of(savedAnimal)));
+            return savedAnimal;
         } catch (DataAccessException e) {
             StackTraceElement stackTraceElement = e.getStackTrace()[0];
             log.error(stackTraceElement.toString());
@@ -46,10 +85,148 @@ public class AnimalService {
         }
     }
 
-    public Animal getAnimal(int id) {
+    /**
+     * Saves the single-animal writes grouped by the {@link AnimalWriteCoalescer} in one transaction.
+     * Unlike {@link #saveAnimals} only the new ids are put in the animal cache, replacing a cached
+     * not-found, and their change is published as SAVED.
+     *
+     * @param animals at most one bulk chunk of animals
+     * @return the generated id of every item and the errors of the rejected ones
+     */
+    @CacheEvict(value = CacheConfig.ALL_DATA, allEntries = true)
+    public BulkResult saveAnimalBatch(List<Animal> animals) {
+        BulkResult result = new BulkResult();
+        List<AnimalEntity> batch = new ArrayList<>(animals.size());
+        List<Integer> batchIndexes = new ArrayList<>(animals.size());
+
+        for (int index = 0; index < animals.size(); index++) {
+            Animal animal = animals.get(index);
+            String error = handleEmptyFields(animal);
+            if (error != null) {
+                rejectItem(result, index, error);
+                continue;
+            }
+            AnimalEntity entity = animalMapper.toEntity(animal);
+            // Like the bulk insert, a client supplied id would turn persist into an update
+            entity.setId(0);
+            result.getIds().add(null);
+            batch.add(entity);
+            batchIndexes.add(index);
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.ANIMAL);
+        List<Animal> saved = saveChunk(result, batch, batchIndexes);
+        if (cache != null) saved.forEach(animal -> cache.put(animal.getId(), animal));
+
+        result.setReceived(animals.size());
+        return result;
+    }
+
+    /**
+     * Saves the animals read from the iterator in fixed-size chunks, each chunk in its own transaction,
+     * so the request body is never fully buffered. Items that can't be read or are incomplete are
+     * reported in the result and don't stop the rest of the import.
+     *
+     * @param animals lazily read animals, usually backed by a streaming JSON parser
+     * @return the generated id of every item and the errors of the rejected ones
+     */
+    @CacheEvict(value = {CacheConfig.ALL_DATA, CacheConfig.ANIMAL}, allEntries = true)
+    public BulkResult saveAnimals(Iterator<Animal> animals) {
+        BulkResult result = new BulkResult();
+        int chunkSize = Math.max(1, bulkChunkSize);
+        List<AnimalEntity> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+
+        int index = 0;
+        while (true) {
+            Animal animal;
+            try {
+                if (!animals.hasNext()) break;
+                animal = animals.next();
+            } catch (RuntimeJsonMappingException e) {
+                // The parser skips the broken item, so the next ones can still be read
+                rejectItem(result, index++, e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                throw new BaseException("Malformed bulk payload at item " + index + ", "
+                        + (result.getSaved() + chunk.size()) + " items were saved before it", 400);
+            }
+
+            String error = validateRequiredFields(animal);
+            if (error == null) error = handleEmptyFields(animal);
+            if (error != null) {
+                rejectItem(result, index++, error);
+                continue;
+            }
+
+            AnimalEntity entity = animalMapper.toEntity(animal);
+            // Bulk insert only creates new rows, a client supplied id would turn persist into an update
+            entity.setId(0);
+            result.getIds().add(null);
+            chunk.add(entity);
+            chunkIndexes.add(index++);
+
+            if (chunk.size() == chunkSize) {
+                saveChunk(result, chunk, chunkIndexes);
+            }
+        }
+        saveChunk(result, chunk, chunkIndexes);
+
+        result.setReceived(index);
+        return result;
+    }
+
+    /**
+     * Saves the chunk in one transaction.
+     *
+     * @return the saved animals, empty when the chunk was rolled back
+     */
+    private List<Animal> saveChunk(BulkResult result, List<AnimalEntity> chunk, List<Integer> chunkIndexes) {
+        if (chunk.isEmpty()) return List.of();
+        List<Animal> saved = List.of();
+        try {
+            animalRepository.saveAllInBatches(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                result.getIds().set(chunkIndexes.get(i), chunk.get(i).getId());
+            }
+            result.setSaved(result.getSaved() + chunk.size());
+            saved = chunk.stream().map(animalMapper::toReadModel).toList();
+            eventPublisher.publishEvent(AnimalChangedEvent.saved(saved));
+        } catch (DataAccessException e) {
+            // The whole chunk was rolled back, so all of its items are reported as failed
+            log.error("[saveAnimals] Chunk of {} items failed: {}", chunk.size(), e.getMessage());
+            chunkIndexes.forEach(i -> result.getErrors().add(new BulkResult.ItemError(i, e.getMessage(), 500)));
+            result.setFailed(result.getFailed() + chunk.size());
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+        return saved;
+    }
+
+    private void rejectItem(BulkResult result, int index, String message) {
+        result.getIds().add(null);
+        result.getErrors().add(new BulkResult.ItemError(index, message));
+        result.setFailed(result.getFailed() + 1);
+    }
+
+    private String validateRequiredFields(Animal animal) {
+        if (animal == null) return "animal is required";
+        if (animal.getName() == null) return "name is required";
+        if (animal.getBirthday() == null) return "birthday is required";
+        if (animal.getType() == null) return "type is required";
+        return null;
+    }
+
+    /**
+     * Read-through per-id cache, a missing animal is cached too (see {@link CacheConfig}).
+     * The writers of this service put or evict the same keys.
+     *
+     * @return the animal, empty when it doesn't exist
+     */
+    @Cacheable(value = CacheConfig.ANIMAL, key = "#id")
+    public Optional<Animal> getAnimal(int id) {
         try {
-            Optional<AnimalEntity> optionalAnimal = animalRepository.findById(id);
-            return optionalAnimal.map(animalMapper::toModel).orElseThrow(() -> new BaseException("Not found animal with " + id + " id", 404));
+            return animalRepository.findModelById(id);
         } catch (DataAccessException e) {
             StackTraceElement stackTraceElement = e.getStackTrace()[0];
             log.error(stackTraceElement.toString());
@@ -59,10 +236,43 @@ public class AnimalService {
 
     public List<Animal> getAnimals() {
         try {
-            var list = animalRepository.findAll();
-            List<Animal> animals = new ArrayList<>();
-            list.forEach(animalEntity -> animals.add(animalMapper.toModel(animalEntity)));
-            return animals;
+            return animalRepository.findAllModels();
+        } catch (DataAccessException e) {
+            StackTraceElement stackTraceElement = e.getStackTrace()[0];
+            log.error(stackTraceElement.toString());
+            throw new BaseException(e.getMessage(), 500);
+        }
+    }
+
+    /**
+     * Passes every animal to the action while the rows are read, ordered by id. Nothing is
+     * collected, so the memory used doesn't depend on the number of animals.
+     *
+     * @return the number of animals read
+     */
+    @Transactional(readOnly = true)
+    public long forEachAnimal(Consumer<Animal> action) {
+        try (Stream<Animal> animals = animalRepository.streamAllModels()) {
+            long count = 0;
+            for (Iterator<Animal> iterator = animals.iterator(); iterator.hasNext(); count++) {
+                action.accept(iterator.next());
+            }
+            return count;
+        } catch (DataAccessException e) {
+            StackTraceElement stackTraceElement = e.getStackTrace()[0];
+            log.error(stackTraceElement.toString());
+            throw new BaseException(e.getMessage(), 500);
+        }
+    }
+
+    /**
+     * Counts by type, diet, gender and age from a single GROUP BY. Cached by the collection
+     * version, so it is computed again only after some animal changed.
+     */
+    @Cacheable(value = CacheConfig.STATS, key = "@animalCollectionVersion.get()")
+    public AnimalStats getStats() {
+        try {
+            return AnimalStats.of(animalRepository.countByTypeDietGenderAndAge());
         } catch (DataAccessException e) {
             StackTraceElement stackTraceElement = e.getStackTrace()[0];
             log.error(stackTraceElement.toString());
@@ -73,8 +283,8 @@ public class AnimalService {
     public List<Animal> getAnimalsByType(String type) {
         try {
             AnimalTypeEnum animalType = AnimalTypeEnum.valueOf(type.toUpperCase());
-            List<AnimalEntity> list = animalRepository.findByType(animalType);
-            return list.stream().map(animalMapper::toModel).toList();
+            // Served from memory once the index is loaded
+            return typeIndex.findByType(animalType).orElseGet(() -> animalRepository.findModelsByType(animalType));
         } catch (IllegalArgumentException e) {
             log.error("Invalid animal type: " + type);
             throw new BaseException("Invalid animal type: " + type, 400);
@@ -85,9 +295,62 @@ public class AnimalService {
         }
     }
 
-    public void deleteAnimal(int id) {
+    /**
+     * @param expectedVersion the version from {@code If-Match}, null to delete any version
+     */
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.ALL_DATA, allEntries = true),
+            @CacheEvict(value = CacheConfig.ANIMAL, key = "#id")})
+    public void deleteAnimal(int id, Long expectedVersion) {
+        int deleted;
+        try {
+            deleted = expectedVersion == null
+                    ? animalRepository.deleteByIds(List.of(id))
+                    : animalRepository.deleteByIdAndVersion(id, expectedVersion);
+        } catch (DataAccessException e) {
+            StackTraceElement stackTraceElement = e.getStackTrace()[0];
+            log.error(stackTraceElement.toString());
+            throw new BaseException(e.getMessage(), 500);
+        }
+        if (deleted == 0 && expectedVersion != null) throw notFoundOrChanged(id);
+        if (deleted > 0) eventPublisher.publishEvent(AnimalChangedEvent.deleted(id));
+    }
+
+    /**
+     * Deletes every animal matching the filter with one DELETE statement.
+     *
+     * @param filter the criteria, at least one field must be informed
+     * @return the number of deleted animals
+     */
+    @CacheEvict(value = {CacheConfig.ALL_DATA, CacheConfig.ANIMAL}, allEntries = true)
+    public int deleteAnimals(AnimalFilter filter) {
+        if (filter == null || filter.isEmpty()) throw new BaseException("At least one filter is required", 400);
+        try {
+            int deleted = animalRepository.deleteByFilter(filter);
+            if (deleted > 0) eventPublisher.publishEvent(AnimalChangedEvent.bulk());
+            return deleted;
+        } catch (DataAccessException e) {
+            StackTraceElement stackTraceElement = e.getStackTrace()[0];
+            log.error(stackTraceElement.toString());
+            throw new BaseException(e.getMessage(), 500);
+        }
+    }
+
+    /**
+     * Sets the informed fields on every animal matching the filter with one UPDATE statement.
+     *
+     * @param filter  the criteria, at least one field must be informed
+     * @param changes the new values, at least one field must be informed
+     * @return the number of updated animals
+     */
+    @CacheEvict(value = {CacheConfig.ALL_DATA, CacheConfig.ANIMAL}, allEntries = true)
+    public int updateAnimals(AnimalFilter filter, AnimalBulkUpdate changes) {
+        if (filter == null || filter.isEmpty()) throw new BaseException("At least one filter is required", 400);
+        if (changes == null || changes.isEmpty()) throw new BaseException("At least one field to update is required", 400);
         try {
-            animalRepository.deleteById(id);
+            int updated = animalRepository.updateByFilter(filter, changes);
+            if (updated > 0) eventPublisher.publishEvent(AnimalChangedEvent.bulk());
+            return updated;
         } catch (DataAccessException e) {
             StackTraceElement stackTraceElement = e.getStackTrace()[0];
             log.error(stackTraceElement.toString());
@@ -95,15 +358,56 @@ public class AnimalService {
         }
     }
 
-    public Animal updateAnimal(Animal animal, int id) {
+    /**
+     * Writes only the informed fields with one UPDATE, the animal isn't loaded before.
+     * The ages are recalculated only when the birthday or the type changes. A new birthday is
+     * validated by the rules of the new type, or by the fallback rules when the type stays.
+     */
+    @Caching(
+            evict = @CacheEvict(value = CacheConfig.ALL_DATA, allEntries = true),
+            put = @CachePut(value = CacheConfig.ANIMAL, key = "#id"))
+    public Animal patchAnimal(int id, AnimalPatch patch, Long expectedVersion) {
+        if (patch == null || patch.isEmpty()) throw new BaseException("At least one field to update is required", 400);
+        String error = validatePatch(id, patch);
+        if (error != null) throw new BaseException(error, 400);
+        var age = patch.getBirthday() != null ? ageCalculator.years(patch.getBirthday()) : 0;
+        Optional<Animal> patched;
+        try {
+            patched = animalRepository.patchById(id, patch, age, speciesRegistry::get, expectedVersion);
+        } catch (DataAccessException e) {
+            StackTraceElement stackTraceElement = e.getStackTrace()[0];
+            log.error(stackTraceElement.toString());
+            throw new BaseException(e.getMessage(), 500);
+        }
+        if (patched.isEmpty()) throw notFoundOrChanged(id);
+        eventPublisher.publishEvent(AnimalChangedEvent.updated(patched.get()));
+        return patched.get();
+    }
+
+    /**
+     * @param expectedVersion the version from {@code If-Match}, null to update any version
+     */
+    @Caching(
+            evict = @CacheEvict(value = CacheConfig.ALL_DATA, allEntries = true),
+            put = @CachePut(value = CacheConfig.ANIMAL, key = "#id"))
+    public Animal updateAnimal(Animal animal, int id, Long expectedVersion) {
         try {
             var animalUpdated = animalRepository.findById(id)
                 .map(existing -> {
-                    updateEntityFields(existing, animal);
+                    if (expectedVersion != null && existing.getVersion() != expectedVersion) {
+                        throw new BaseException("Animal with ID " + id + " was modified, version is " + existing.getVersion() + ".", 412);
+                    }
+                    String error = updateEntityFields(existing, animal);
+                    if (error != null) throw new BaseException(error, 400);
                     return existing;
                 })
                 .orElseThrow(() -> new BaseException("Animal with ID " + id + " not found.", 404));
-            return animalMapper.toModel(animalRepository.save(animalUpdated));
+            var updatedAnimal = animalMapper.toModel(animalRepository.save(animalUpdated));
+            eventPublisher.publishEvent(AnimalChangedEvent.updated(updatedAnimal));
+            return updatedAnimal;
+        } catch (OptimisticLockingFailureException e) {
+            // Another writer committed between the read and this update
+            throw new BaseException("Animal with ID " + id + " was modified concurrently.", 412);
         } catch (DataAccessException e) {
             StackTraceElement stackTraceElement = e.getStackTrace()[0];
             log.error(stackTraceElement.toString());
@@ -111,31 +415,60 @@ public class AnimalService {
         }
     }
 
-    private void handleEmptyFields(Animal animal) {
-        Animal newAnimal = handleAnimalType(animal.getType(), animal.getBirthday());
+    /**
+     * Sets the ages and the diet of the species, straight from its rules, and shares the name instance.
+     *
+     * @return the reason the animal is invalid, null when it is valid
+     */
+    private String handleEmptyFields(Animal animal) {
+        ISpeciesRules rules = speciesRegistry.get(animal.getType());
+        String error = rules.validate(animal, ageCalculator.days(animal.getBirthday()));
+        if (error != null) return error;
 
-        animal.setAge(newAnimal.getAge());
-        animal.setAgeInHumanYears(newAnimal.getAgeInHumanYears());
-        animal.setDiet(newAnimal.getDiet());
+        int years = ageCalculator.years(animal.getBirthday());
+        animal.setName(AnimalNameDictionary.intern(animal.getName()));
+        animal.setAge(years);
+        animal.setAgeInHumanYears(rules.humanYears(years));
+        animal.setDiet(rules.defaultDiet());
+        return null;
     }
 
-    private void updateEntityFields(AnimalEntity existing, Animal newAnimal) {
-        existing.setName(newAnimal.getName());
-        existing.setBirthday(newAnimal.getBirthday());
-        existing.setType(newAnimal.getType());
+    /**
+     * The species rules of the patched fields, the stored birthday was validated when it was written.
+     *
+     * @return the reason the patch is invalid, null when it is valid
+     */
+    private String validatePatch(int id, AnimalPatch patch) {
+        if (patch.getBirthday() == null) return null;
+        ISpeciesRules rules = speciesRegistry.get(patch.getType());
+        var animal = new Animal(patch.getBirthday());
+        animal.setId(id);
+        animal.setType(rules.type());
+        if (patch.getName() != null) animal.setName(patch.getName());
+        if (patch.getDiet() != null) animal.setDiet(patch.getDiet());
+        if (patch.getGender() != null) animal.setGender(patch.getGender());
+        return rules.validate(animal, ageCalculator.days(patch.getBirthday()));
+    }
 
-        newAnimal.calculateAge();
-        existing.setAge(newAnimal.getAge());
-        existing.setAgeInHumanYears(newAnimal.getAgeInHumanYears());
-        existing.setDiet(newAnimal.getDiet());
+    private BaseException notFoundOrChanged(int id) {
+        return animalRepository.existsById(id)
+                ? new BaseException("Animal with ID " + id + " was modified.", 412)
+                : new BaseException("Animal with ID " + id + " not found.", 404);
     }
 
-    private Animal handleAnimalType(AnimalTypeEnum animalType, LocalDate date) {
-        return switch (animalType) {
-            case CAT -> new Cat(date);
-            case DOG -> new Dog(date);
-            default -> new Animal(date);
-        };
+    private String updateEntityFields(AnimalEntity existing, Animal newAnimal) {
+        ISpeciesRules rules = speciesRegistry.get(newAnimal.getType());
+        String error = rules.validate(newAnimal, ageCalculator.days(newAnimal.getBirthday()));
+        if (error != null) return error;
+        int years = ageCalculator.years(newAnimal.getBirthday());
+
+        existing.setName(AnimalNameDictionary.intern(newAnimal.getName()));
+        existing.setBirthday(newAnimal.getBirthday());
+        existing.setType(newAnimal.getType());
+        existing.setAge(years);
+        existing.setAgeInHumanYears(rules.humanYears(years));
+        existing.setDiet(newAnimal.getDiet() != null ? newAnimal.getDiet() : rules.defaultDiet());
+        return null;
     }
 
 }
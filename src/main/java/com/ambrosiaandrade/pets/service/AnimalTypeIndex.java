@@ -0,0 +1,216 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory copy of the animals partitioned by type, ordered by id inside each partition.
+ * It's loaded in chunks by id on its own thread when the application is ready, and follows the
+ * {@link AnimalChangedEvent}s published by the services. A bulk change marks it stale and loads
+ * a new copy on that thread, the reads fall back to the database until it's swapped in. A table
+ * bigger than {@code max-animals} isn't held at all. Reads are lock-free, changes are applied one at a time.
+ */
+@Slf4j
+@Component
+public class AnimalTypeIndex {
+
+    static final int LOAD_CHUNK_SIZE = 10_000;
+
+    private final AnimalRepository repository;
+    private final boolean enabled;
+    private final int maxAnimals;
+    private final Executor loader;
+
+    // Null until loaded and while stale, callers fall back to the database meanwhile
+    private volatile Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> partitions;
+    private volatile long lastSyncMillis;
+    // Guarded by this: changes received during a load, replayed on the new copy before it's swapped in
+    private List<AnimalChangedEvent> pending;
+    private boolean reloadRequested;
+
+    @Autowired
+    public AnimalTypeIndex(AnimalRepository repository, MeterRegistry meterRegistry,
+                           @Value("${app.animal.type-index.enabled:false}") boolean enabled,
+                           @Value("${app.animal.type-index.max-animals:100000}") int maxAnimals) {
+        this(repository, meterRegistry, enabled, maxAnimals,
+                Executors.newSingleThreadExecutor(Thread.ofPlatform().name("animal-type-index").daemon().factory()));
+    }
+
+    AnimalTypeIndex(AnimalRepository repository, MeterRegistry meterRegistry, boolean enabled, int maxAnimals, Executor loader) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxAnimals = maxAnimals;
+        this.loader = loader;
+
+        for (AnimalTypeEnum type : AnimalTypeEnum.values()) {
+            Gauge.builder("animal.type.index.size", this, index -> index.size(type))
+                    .tag("type", type.name())
+                    .description("Animals held by the in-memory type index")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("animal.type.index.staleness", this, AnimalTypeIndex::stalenessSeconds)
+                .baseUnit("seconds")
+                .description("Time since the type index was last loaded or changed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) reload();
+    }
+
+    /**
+     * Marks the index stale and loads a new copy on the loader thread, at most one load is queued.
+     */
+    public synchronized void reload() {
+        partitions = null;
+        if (pending != null) {
+            // The running load read part of the table before this change, it starts over
+            reloadRequested = true;
+            return;
+        }
+        pending = new ArrayList<>();
+        loader.execute(this::load);
+    }
+
+    @EventListener
+    public synchronized void onAnimalChanged(AnimalChangedEvent event) {
+        if (event.getChange() == AnimalChangeEnum.BULK) {
+            // Also when the index was dropped for its size, the table may be smaller now
+            if (enabled) reload();
+            return;
+        }
+        if (pending != null) {
+            pending.add(event);
+            return;
+        }
+        var current = partitions;
+        // Not loaded (or disabled), the next load reads the change from the database anyway
+        if (current == null) return;
+        apply(current, event);
+        lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the animals of the type ordered by id, empty while the index isn't loaded
+     */
+    public Optional<List<Animal>> findByType(AnimalTypeEnum type) {
+        var current = partitions;
+        if (current == null) return Optional.empty();
+        return Optional.of(List.copyOf(current.get(type).values()));
+    }
+
+    private void load() {
+        Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> fresh;
+        do {
+            fresh = read();
+        } while (!swap(fresh));
+    }
+
+    /**
+     * Reads every animal in chunks by id, the writers aren't blocked meanwhile.
+     *
+     * @return the new partitions, null when the table has more than {@code maxAnimals} or can't be read
+     */
+    private Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> read() {
+        Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> fresh = new EnumMap<>(AnimalTypeEnum.class);
+        for (AnimalTypeEnum type : AnimalTypeEnum.values()) {
+            fresh.put(type, new ConcurrentSkipListMap<>());
+        }
+        try {
+            Limit chunk = Limit.of(LOAD_CHUNK_SIZE);
+            int lastId = Integer.MIN_VALUE;
+            int loaded = 0;
+            List<Animal> animals;
+            do {
+                animals = repository.findModelsAfter(lastId, chunk);
+                loaded += animals.size();
+                if (loaded > maxAnimals) {
+                    log.warn("[AnimalTypeIndex] More than {} animals, the queries by type read the database", maxAnimals);
+                    return null;
+                }
+                animals.forEach(animal -> put(fresh, animal));
+                if (!animals.isEmpty()) lastId = animals.get(animals.size() - 1).getId();
+            } while (animals.size() == LOAD_CHUNK_SIZE);
+        } catch (RuntimeException e) {
+            log.error("[AnimalTypeIndex] Load failed, the queries by type read the database: {}", e.getMessage());
+            return null;
+        }
+        return fresh;
+    }
+
+    /**
+     * Replays the changes received during the load and swaps the new copy in.
+     *
+     * @return false when a bulk change arrived meanwhile and the table has to be read again
+     */
+    private synchronized boolean swap(Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> fresh) {
+        if (reloadRequested && fresh != null) {
+            reloadRequested = false;
+            pending.clear();
+            return false;
+        }
+        reloadRequested = false;
+        var changes = pending;
+        pending = null;
+        if (fresh == null) return true;
+
+        changes.forEach(event -> apply(fresh, event));
+        partitions = fresh;
+        lastSyncMillis = System.currentTimeMillis();
+        log.info("[AnimalTypeIndex] Loaded {} animals", fresh.values().stream().mapToInt(Map::size).sum());
+        return true;
+    }
+
+    private void apply(Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> target, AnimalChangedEvent event) {
+        switch (event.getChange()) {
+            case DELETED -> event.getIds().forEach(id -> remove(target, id));
+            case SAVED, UPDATED -> {
+                var animals = event.getAnimals() != null ? event.getAnimals() : repository.findModelsByIds(event.getIds());
+                // The type may have changed, so the old entry can be in any partition
+                event.getIds().forEach(id -> remove(target, id));
+                animals.forEach(animal -> put(target, animal));
+            }
+            default -> throw new IllegalArgumentException("Not a change of known animals: " + event.getChange());
+        }
+    }
+
+    private static void put(Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> target, Animal animal) {
+        if (animal.getType() != null) target.get(animal.getType()).put(animal.getId(), animal);
+    }
+
+    private static void remove(Map<AnimalTypeEnum, ConcurrentSkipListMap<Integer, Animal>> target, int id) {
+        target.values().forEach(partition -> partition.remove(id));
+    }
+
+    private double size(AnimalTypeEnum type) {
+        var current = partitions;
+        return current == null ? Double.NaN : current.get(type).size();
+    }
+
+    private double stalenessSeconds() {
+        return partitions == null ? Double.NaN : (System.currentTimeMillis() - lastSyncMillis) / 1000.0;
+    }
+
+}
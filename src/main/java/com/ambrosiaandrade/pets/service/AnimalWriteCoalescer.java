@@ -0,0 +1,175 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.CoalescerProperties;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.BulkResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for {@code POST /animal}: concurrent saves wait up to {@code max-wait-ms} (or until
+ * {@code max-batch-size} requests are queued) and are then written in a single batched transaction,
+ * so the commit rate grows with the load instead of one commit per request. A caller waits at most
+ * {@code timeout-ms} for the commit. {@code max-batch-size} can't exceed {@code app.animal.bulk.chunk-size},
+ * the largest insert committed at once. Enabled with {@code app.animal.coalescer.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.animal.coalescer.enabled", havingValue = "true")
+public class AnimalWriteCoalescer {
+
+    private final AnimalService service;
+    private final CoalescerProperties properties;
+    private final BlockingQueue<PendingWrite> queue;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AnimalWriteCoalescer(AnimalService service, CoalescerProperties properties,
+                                @Value("${app.animal.bulk.chunk-size:500}") int bulkChunkSize) {
+        if (properties.getMaxBatchSize() > bulkChunkSize) {
+            throw new IllegalStateException("app.animal.coalescer.max-batch-size (" + properties.getMaxBatchSize()
+                    + ") can't be greater than app.animal.bulk.chunk-size (" + bulkChunkSize + ")");
+        }
+        this.service = service;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("animal-write-coalescer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        // Whatever is still queued is written before shutting down
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+    }
+
+    /**
+     * Saves the animal together with the other writes that arrive in the same window and waits for the commit.
+     *
+     * @param animal the animal to save
+     * @return the saved animal with its generated id
+     * @throws BaseException 503 when the commit takes longer than {@code timeout-ms}, the write may still be committed
+     */
+    public Animal save(Animal animal) {
+        try {
+            return submit(animal).orTimeout(properties.getTimeoutMs(), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BaseException baseException) throw baseException;
+            if (e.getCause() instanceof TimeoutException) {
+                throw new BaseException("Write wasn't committed within " + properties.getTimeoutMs() + " ms, try again later", 503);
+            }
+            throw new BaseException(e.getCause().getMessage(), 500);
+        }
+    }
+
+    public CompletableFuture<Animal> submit(Animal animal) {
+        var pending = new PendingWrite(animal, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new BaseException("Write queue is full, try again later", 503);
+        }
+        // stop() may have drained the queue between the check and the offer. If the write is still
+        // queued nobody will take it, otherwise the worker or stop() took it and completes it
+        if (!running && queue.remove(pending)) {
+            throw new BaseException("Write queue is stopped, try again later", 503);
+        }
+        return pending.future();
+    }
+
+    private void run() {
+        try {
+            coalesce();
+        } catch (Error e) {
+            // Nothing takes the queued writes anymore, fail them instead of leaving their callers waiting
+            running = false;
+            List<PendingWrite> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            remaining.forEach(pending -> pending.future().completeExceptionally(new BaseException("Write queue is stopped, try again later", 503)));
+            throw e;
+        }
+    }
+
+    private void coalesce() {
+        List<PendingWrite> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running) {
+            try {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs());
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            BulkResult result = service.saveAnimalBatch(batch.stream().map(PendingWrite::animal).toList());
+            log.debug("[AnimalWriteCoalescer] Committed {} of {} writes", result.getSaved(), batch.size());
+
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite pending = batch.get(i);
+                Integer id = result.getIds().get(i);
+                if (id != null) {
+                    pending.animal().setId(id);
+                    pending.future().complete(pending.animal());
+                } else {
+                    pending.future().completeExceptionally(errorOf(result, i));
+                }
+            }
+        } catch (Throwable e) {
+            log.error("[AnimalWriteCoalescer] Batch of {} writes failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+            if (e instanceof Error error) throw error;
+        }
+    }
+
+    /**
+     * The error of the item, a 400 when it was invalid and a 500 when its chunk failed in the database.
+     */
+    private BaseException errorOf(BulkResult result, int index) {
+        return result.getErrors().stream()
+                .filter(error -> error.getIndex() == index)
+                .map(error -> new BaseException(error.getMessage(), error.getStatusCode()))
+                .findFirst()
+                .orElseGet(() -> new BaseException("Animal could not be saved", 500));
+    }
+
+    private record PendingWrite(Animal animal, CompletableFuture<Animal> future) {
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CatSpeciesRules implements ISpeciesRules {
+
+    @Override
+    public AnimalTypeEnum type() {
+        return AnimalTypeEnum.CAT;
+    }
+
+    @Override
+    public AnimalDietEnum defaultDiet() {
+        return AnimalDietEnum.CARNIVOROUS;
+    }
+
+    @Override
+    public int humanYears(int years) {
+        // 15 for the first year, 9 for the second and 4 for each one after, so 16 + 4 * years from the second on
+        if (years <= 0) return 0;
+        return years == 1 ? 15 : 16 + 4 * years;
+    }
+
+}
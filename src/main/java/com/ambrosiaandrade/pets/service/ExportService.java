@@ -1,7 +1,6 @@
 package com.ambrosiaandrade.pets.service;
 
 import com.ambrosiaandrade.pets.exceptions.BaseException;
-import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
 import com.ambrosiaandrade.pets.models.Animal;
 import com.ambrosiaandrade.pets.repositories.AnimalRepository;
 import com.lowagie.text.Chunk;
@@ -25,11 +24,9 @@ import java.util.List;
 public class ExportService {
 
     private final AnimalRepository repository;
-    private final IAnimalMapper mapper;
 
-    public ExportService(AnimalRepository repository, IAnimalMapper mapper) {
+    public ExportService(AnimalRepository repository) {
         this.repository = repository;
-        this.mapper = mapper;
     }
 
     public byte[] getCsv() {
@@ -108,10 +105,7 @@ public class ExportService {
 
     private List<Animal> fetchAnimals() {
         try {
-            var entities = repository.findAll();
-            return entities.stream()
-                    .map(mapper::toModel)
-                    .toList();
+            return repository.findAllModels();
         } catch (DataAccessException e) {
             StackTraceElement stackTraceElement = e.getStackTrace()[0];
             log.error(stackTraceElement.toString());
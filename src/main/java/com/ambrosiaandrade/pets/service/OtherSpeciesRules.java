@@ -0,0 +1,27 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OtherSpeciesRules implements ISpeciesRules {
+
+    @Override
+    public AnimalTypeEnum type() {
+        return AnimalTypeEnum.OTHER;
+    }
+
+    @Override
+    public AnimalDietEnum defaultDiet() {
+        return AnimalDietEnum.OMNIVOROUS;
+    }
+
+    @Override
+    public int humanYears(int years) {
+        // Other animals age like people, a future birthday included
+        return years;
+    }
+
+}
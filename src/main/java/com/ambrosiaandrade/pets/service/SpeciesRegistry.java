@@ -0,0 +1,38 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ISpeciesRules} of every type, looked up in an {@link EnumMap} instead of building
+ * a Cat or a Dog to read their defaults. Types without rules of their own use the OTHER rules.
+ */
+@Component
+public class SpeciesRegistry {
+
+    private final Map<AnimalTypeEnum, ISpeciesRules> rules = new EnumMap<>(AnimalTypeEnum.class);
+    private final ISpeciesRules fallback;
+
+    public SpeciesRegistry(List<ISpeciesRules> rules) {
+        for (ISpeciesRules speciesRules : rules) {
+            var previous = this.rules.putIfAbsent(speciesRules.type(), speciesRules);
+            if (previous != null) {
+                throw new IllegalStateException("Two species rules for " + speciesRules.type() + ": "
+                        + previous.getClass().getSimpleName() + " and " + speciesRules.getClass().getSimpleName());
+            }
+        }
+        this.fallback = this.rules.get(AnimalTypeEnum.OTHER);
+        if (fallback == null) throw new IllegalStateException("Species rules for " + AnimalTypeEnum.OTHER + " are required");
+    }
+
+    public ISpeciesRules get(AnimalTypeEnum type) {
+        var speciesRules = type == null ? null : rules.get(type);
+        return speciesRules != null ? speciesRules : fallback;
+    }
+
+}
@@ -1,29 +1,32 @@
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Bolt', 5, 1, '2019-06-01', 'DOG', 'CARNIVOROUS', 'MALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (1, 0, 'Bolt', 5, 1, '2019-06-01', 'DOG', 'CARNIVOROUS', 'MALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Minerva', 6, 1, '2018-05-01', 'CAT', 'CARNIVOROUS', 'FEMALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (2, 0, 'Minerva', 6, 1, '2018-05-01', 'CAT', 'CARNIVOROUS', 'FEMALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Charlie', 2, 0, '2022-08-15', 'DOG', 'OMNIVOROUS', 'MALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (3, 0, 'Charlie', 2, 0, '2022-08-15', 'DOG', 'OMNIVOROUS', 'MALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Luna', 4, 1, '2020-03-10', 'CAT', 'CARNIVOROUS', 'FEMALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (4, 0, 'Luna', 4, 1, '2020-03-10', 'CAT', 'CARNIVOROUS', 'FEMALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Max', 7, 2, '2017-01-20', 'DOG', 'OMNIVOROUS', 'MALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (5, 0, 'Max', 7, 2, '2017-01-20', 'DOG', 'OMNIVOROUS', 'MALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Bella', 3, 1, '2021-11-05', 'CAT', 'CARNIVOROUS', 'FEMALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (6, 0, 'Bella', 3, 1, '2021-11-05', 'CAT', 'CARNIVOROUS', 'FEMALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Rocky', 8, 2, '2016-04-12', 'DOG', 'CARNIVOROUS', 'MALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (7, 0, 'Rocky', 8, 2, '2016-04-12', 'DOG', 'CARNIVOROUS', 'MALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Milo', 1, 0, '2023-09-30', 'CAT', 'OMNIVOROUS', 'MALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (8, 0, 'Milo', 1, 0, '2023-09-30', 'CAT', 'OMNIVOROUS', 'MALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Daisy', 5, 1, '2019-07-18', 'DOG', 'CARNIVOROUS', 'FEMALE');
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (9, 0, 'Daisy', 5, 1, '2019-07-18', 'DOG', 'CARNIVOROUS', 'FEMALE');
 
-INSERT INTO animal (name, age, age_in_human_years, birthday, type, diet, gender)
-    VALUES ('Simba', 6, 1, '2018-02-25', 'CAT', 'CARNIVOROUS', 'MALE');
\ No newline at end of file
+INSERT INTO animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender)
+    VALUES (10, 0, 'Simba', 6, 1, '2018-02-25', 'CAT', 'CARNIVOROUS', 'MALE');
+
+-- Ids above are explicit, so move the pooled sequence past them
+ALTER SEQUENCE animal_seq RESTART WITH 101;
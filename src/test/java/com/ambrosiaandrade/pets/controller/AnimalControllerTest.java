@@ -1,32 +1,57 @@
 package com.ambrosiaandrade.pets.controller;
 
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
 import com.ambrosiaandrade.pets.factory.MockAnimal;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalCount;
+import com.ambrosiaandrade.pets.models.AnimalStats;
+import com.ambrosiaandrade.pets.models.BulkResult;
 import com.ambrosiaandrade.pets.models.Cat;
+import com.ambrosiaandrade.pets.service.AnimalCollectionVersion;
 import com.ambrosiaandrade.pets.service.AnimalService;
+import com.ambrosiaandrade.pets.service.AnimalWriteCoalescer;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.CAT;
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AnimalController.class)
+@Import(AnimalCollectionVersion.class)
 class AnimalControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private AnimalCollectionVersion collectionVersion;
+
     @MockitoBean
     private AnimalService animalService;
 
@@ -59,6 +84,70 @@ class AnimalControllerTest {
         verify(animalService).saveAnimal(any());
     }
 
+    @Nested
+    @TestPropertySource(properties = "app.animal.coalescer.enabled=true")
+    class WithCoalescer {
+
+        // Own context: the enclosing instance is wired without the coalescer bean
+        @Autowired
+        private MockMvc coalescerMockMvc;
+
+        @Autowired
+        private AnimalService coalescerAnimalService;
+
+        @MockitoBean
+        private AnimalWriteCoalescer coalescer;
+
+        @Test
+        void addAnimal_shouldGoThroughCoalescer() throws Exception {
+            Animal savedAnimal = new Cat();
+            savedAnimal.setId(7);
+            savedAnimal.setName("Findus");
+
+            when(coalescer.save(any())).thenReturn(savedAnimal);
+
+            coalescerMockMvc.perform(
+                            MockMvcRequestBuilders.post("/animal")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"name\": \"Findus\", \"birthday\": \"2020-01-01\", \"type\": \"CAT\"}")
+                    )
+                    .andDo(print())
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Location", containsString("/animal/7")));
+
+            verify(coalescer).save(any());
+            verify(coalescerAnimalService, never()).saveAnimal(any());
+        }
+
+    }
+
+    @Test
+    void addAnimals_shouldReturnBulkSummary() throws Exception {
+        BulkResult bulkResult = new BulkResult();
+        bulkResult.setReceived(2);
+        bulkResult.setSaved(2);
+        bulkResult.setIds(List.of(101, 102));
+
+        when(animalService.saveAnimals(any())).thenReturn(bulkResult);
+
+        String ndjson = """
+                {"name": "Findus", "birthday": "2020-01-01", "type": "CAT"}
+                {"name": "Rex", "birthday": "2019-01-01", "type": "DOG"}
+                """;
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/animal/bulk")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .content(ndjson)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saved").value(2))
+                .andExpect(jsonPath("$.ids[1]").value(102));
+
+        verify(animalService).saveAnimals(any());
+    }
+
     @Test
     void getAnimals_shouldReturnAnimalListAndOkStatus() throws Exception {
         List<Animal> list = MockAnimal.generateAnimals();
@@ -74,6 +163,77 @@ class AnimalControllerTest {
         verify(animalService).getAnimals();
     }
 
+    @Test
+    void getAnimals_shouldReturnNotModifiedUntilAnAnimalChanges() throws Exception {
+        when(animalService.getAnimals()).thenReturn(MockAnimal.generateAnimals());
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/animal"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/animal").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        verify(animalService, times(1)).getAnimals();
+
+        collectionVersion.onAnimalChanged(AnimalChangedEvent.deleted(1));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/animal").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, collectionVersion.eTag()));
+        verify(animalService, times(2)).getAnimals();
+    }
+
+    @Test
+    void getStats_shouldReturnCountsWithCollectionETag() throws Exception {
+        when(animalService.getStats()).thenReturn(AnimalStats.of(List.of(
+                new AnimalCount(CAT, AnimalDietEnum.CARNIVOROUS, AnimalGenderEnum.MALE, 2, 3))));
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/animal/stats"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.byType.CAT").value(3))
+                .andExpect(jsonPath("$.byType.DOG").value(0))
+                .andExpect(jsonPath("$.byAge.2").value(3))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/animal/stats").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        verify(animalService, times(1)).getStats();
+    }
+
+    @Test
+    void streamAnimals_shouldWriteJsonArrayOrNdjson() throws Exception {
+        List<Animal> list = MockAnimal.generateAnimals();
+        when(animalService.forEachAnimal(any())).thenAnswer(invocation -> {
+            Consumer<Animal> action = invocation.getArgument(0);
+            list.forEach(action);
+            return (long) list.size();
+        });
+
+        var array = mockMvc.perform(MockMvcRequestBuilders.get("/animal/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(array))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(list.size()))
+                .andExpect(jsonPath("$[0].name").value(list.get(0).getName()));
+
+        var ndjson = mockMvc.perform(MockMvcRequestBuilders.get("/animal/stream").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(list.size(), lines.lines().count());
+        assertTrue(lines.lines().allMatch(line -> line.startsWith("{") && line.endsWith("}")));
+    }
+
     @Test
     void getAnimalByType_shouldReturnAnimalListAndOkStatus() throws Exception {
         List<Animal> list = List.of(MockAnimal.generateAnimal(CAT));
@@ -95,7 +255,7 @@ class AnimalControllerTest {
         Animal savedAnimal = MockAnimal.generateAnimal(CAT);
         savedAnimal.setId(1);
 
-        when(animalService.getAnimal(anyInt())).thenReturn(savedAnimal);
+        when(animalService.getAnimal(anyInt())).thenReturn(Optional.of(savedAnimal));
 
         mockMvc.perform(
                         MockMvcRequestBuilders.get("/animal/{id}", 1)
@@ -106,9 +266,47 @@ class AnimalControllerTest {
         verify(animalService).getAnimal(anyInt());
     }
 
+    @Test
+    void getAnimalById_shouldReturnNotFound() throws Exception {
+        when(animalService.getAnimal(anyInt())).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/animal/{id}", 1))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAnimalById_shouldReturnETagAndNotModified() throws Exception {
+        Animal savedAnimal = MockAnimal.generateAnimal(CAT);
+        savedAnimal.setVersion(4);
+
+        when(animalService.getAnimal(anyInt())).thenReturn(Optional.of(savedAnimal));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/animal/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/animal/{id}", 1).header("If-None-Match", "\"4\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void deleteAnimalById_shouldPassIfMatchVersion() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/animal/{id}", 1).header("If-Match", "W/\"7\""))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/animal/{id}", 1).header("If-Match", "\"abc\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        verify(animalService).deleteAnimal(1, 7L);
+        verify(animalService, never()).deleteAnimal(anyInt(), isNull());
+    }
+
     @Test
     void deleteAnimalById_shouldNoContentStatus() throws Exception {
-        doNothing().when(animalService).deleteAnimal(anyInt());
+        doNothing().when(animalService).deleteAnimal(anyInt(), isNull());
 
         mockMvc.perform(
                         MockMvcRequestBuilders.delete("/animal/{id}", 1)
@@ -116,7 +314,59 @@ class AnimalControllerTest {
                 .andDo(print())
                 .andExpect(status().isNoContent());
 
-        verify(animalService).deleteAnimal(anyInt());
+        verify(animalService).deleteAnimal(anyInt(), isNull());
+    }
+
+    @Test
+    void deleteAnimals_shouldReturnAffectedRows() throws Exception {
+        when(animalService.deleteAnimals(any())).thenReturn(3);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.delete("/animal")
+                                .param("type", "CAT")
+                                .param("createdFrom", "2025-01-01")
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+
+        verify(animalService).deleteAnimals(argThat(filter ->
+                filter.getType() == CAT && LocalDate.of(2025, 1, 1).equals(filter.getCreatedFrom())));
+    }
+
+    @Test
+    void updateAnimals_shouldReturnAffectedRows() throws Exception {
+        when(animalService.updateAnimals(any(), any())).thenReturn(2);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.patch("/animal")
+                                .param("ids", "1", "2")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"diet\": \"HERBICOROUS\"}")
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+
+        verify(animalService).updateAnimals(argThat(filter -> filter.getIds().equals(List.of(1, 2))), any());
+    }
+
+    @Test
+    void patchAnimalById_shouldReturnNoContent() throws Exception {
+        Animal patched = MockAnimal.generateAnimal(CAT);
+        patched.setVersion(3);
+        when(animalService.patchAnimal(eq(1), any(), isNull())).thenReturn(patched);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders.patch("/animal/1")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"name\": \"Findus\"}")
+                )
+                .andDo(print())
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+        verify(animalService).patchAnimal(eq(1), argThat(patch -> "Findus".equals(patch.getName()) && patch.getBirthday() == null), isNull());
     }
 
     @Test
@@ -124,7 +374,7 @@ class AnimalControllerTest {
         Animal savedAnimal = MockAnimal.generateAnimal(CAT);
         savedAnimal.setId(1);
 
-        when(animalService.updateAnimal(any(), anyInt())).thenReturn(savedAnimal);
+        when(animalService.updateAnimal(any(), anyInt(), any())).thenReturn(savedAnimal);
 
         String json = """
                 {
@@ -140,9 +390,10 @@ class AnimalControllerTest {
                                 .content(json)
                 )
                 .andDo(print())
-                .andExpect(status().isAccepted());
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("ETag"));
 
-        verify(animalService).updateAnimal(any(), anyInt());
+        verify(animalService).updateAnimal(any(), anyInt(), any());
     }
 
 }
\ No newline at end of file
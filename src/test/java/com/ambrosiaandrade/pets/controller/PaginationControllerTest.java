@@ -1,36 +1,70 @@
 package com.ambrosiaandrade.pets.controller;
 
 import com.ambrosiaandrade.pets.factory.MockAnimal;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.enums.DatasetSinkEnum;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.models.DatasetResult;
+import com.ambrosiaandrade.pets.models.DatasetSpec;
+import com.ambrosiaandrade.pets.models.KeysetPage;
 import com.ambrosiaandrade.pets.service.AdvanceService;
+import com.ambrosiaandrade.pets.service.AnimalCollectionVersion;
+import com.ambrosiaandrade.pets.service.AnimalDatasetGenerator;
+import com.ambrosiaandrade.pets.service.AnimalJsonCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(PaginationController.class)
+@Import({AnimalCollectionVersion.class, AnimalJsonCache.class})
 class PaginationControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private AnimalCollectionVersion collectionVersion;
+
     @MockitoBean
     private AdvanceService service;
 
+    @MockitoBean
+    private AnimalDatasetGenerator datasetGenerator;
+
     @Nested
     class Data {
 
@@ -53,6 +87,24 @@ class PaginationControllerTest {
                     .andExpect(status().isOk());
         }
 
+        @Test
+        @DisplayName("Generating a dataset")
+        void generateDataset() throws Exception {
+            var today = LocalDate.of(2025, 5, 10);
+            when(datasetGenerator.generate(any())).thenReturn(new DatasetResult(DatasetSinkEnum.CSV, 42, today, 1000, 20, 50_000, "/tmp/animals-42-1000.csv"));
+
+            mockMvc.perform(post("/advance/dataset")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rows\": 1000, \"sink\": \"CSV\", \"seed\": 42, \"types\": {\"CAT\": 2, \"DOG\": 1}}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rowsPerSecond").value(50_000))
+                    .andExpect(jsonPath("$.file").value("/tmp/animals-42-1000.csv"));
+
+            var spec = DatasetSpec.builder().rows(1000).sink(DatasetSinkEnum.CSV).seed(42L)
+                    .types(Map.of(AnimalTypeEnum.CAT, 2, AnimalTypeEnum.DOG, 1)).build();
+            verify(datasetGenerator).generate(spec);
+        }
+
         @Test
         @DisplayName("Populating database but error")
         void populateDatabase_error() throws Exception {
@@ -80,6 +132,34 @@ class PaginationControllerTest {
             verify(service, times(1)).getDataNoPaginationButWithCache();
         }
 
+        @Test
+        @DisplayName("Get data with cache - gzip encoded when accepted")
+        void getDataNoPaginationWithCache_gzip() throws Exception {
+            List<Animal> list = MockAnimal.generateAnimals();
+            when(service.getDataNoPaginationButWithCache()).thenReturn(list);
+
+            byte[] gzip = mockMvc.perform(
+                            get("/advance/no-pagination-with-cache")
+                                    .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8")
+                    )
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                    .andReturn().getResponse().getContentAsByteArray();
+            byte[] identity = mockMvc.perform(
+                            get("/advance/no-pagination-with-cache")
+                                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")
+                    )
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(jsonPath("$.length()").value(list.size()))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            try (var input = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                assertArrayEquals(identity, input.readAllBytes());
+            }
+        }
+
         @Test
         @DisplayName("Get data without cache and no pagination")
         void getDataNoPagination() throws Exception {
@@ -95,6 +175,25 @@ class PaginationControllerTest {
             verify(service, times(1)).getDataNoPagination();
         }
 
+        @Test
+        @DisplayName("Get data - not modified while no animal changes")
+        void getData_notModified() throws Exception {
+            String eTag = collectionVersion.eTag();
+
+            mockMvc.perform(get("/advance/no-pagination").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/advance/no-pagination-with-cache").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+            verifyNoInteractions(service);
+
+            collectionVersion.onAnimalChanged(AnimalChangedEvent.bulk());
+
+            mockMvc.perform(get("/advance/no-pagination-with-cache").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/" + collectionVersion.eTag()));
+            verify(service).getDataNoPaginationButWithCache();
+        }
+
         @Test
         @DisplayName("Get data without cache but pagination")
         void getDataWithPagination() throws Exception {
@@ -110,6 +209,82 @@ class PaginationControllerTest {
 
             verify(service, times(1)).getDataWithPagination(any());
         }
+
+        @Test
+        @DisplayName("Get data with keyset pagination")
+        void getDataWithKeysetPagination() throws Exception {
+            var page = new KeysetPage<>(MockAnimal.generateAnimals(), 3, "abc", true, null);
+            when(service.getDataWithKeysetPagination(any(), any(), any(), anyInt(), anyBoolean())).thenReturn(page);
+
+            mockMvc.perform(
+                            get("/advance/pagination/keyset")
+                                    .param("sort", "NAME")
+                                    .param("size", "3")
+                    )
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.nextCursor").value("abc"))
+                    .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+            verify(service).getDataWithKeysetPagination(null, AnimalSortEnum.NAME, Sort.Direction.ASC, 3, false);
+        }
+
+        @Test
+        @DisplayName("Search binds the criteria")
+        void search() throws Exception {
+            var page = new KeysetPage<>(MockAnimal.generateAnimals(), 3, null, false, 3L);
+            when(service.search(any(), any(), any(), any(), anyInt(), anyBoolean())).thenReturn(page);
+
+            mockMvc.perform(
+                            get("/advance/search")
+                                    .param("type", "DOG")
+                                    .param("gender", "FEMALE")
+                                    .param("minAge", "2")
+                                    .param("bornFrom", "2015-01-01")
+                                    .param("name", "Bo")
+                                    .param("sort", "BIRTHDAY")
+                                    .param("count", "true")
+                    )
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(3));
+
+            var search = AnimalSearch.builder().type(AnimalTypeEnum.DOG).gender(AnimalGenderEnum.FEMALE).minAge(2)
+                    .bornFrom(LocalDate.of(2015, 1, 1)).name("Bo").build();
+            verify(service).search(search, null, AnimalSortEnum.BIRTHDAY, Sort.Direction.ASC, 20, true);
+        }
+
+        @Test
+        @DisplayName("Search - unknown criterion value")
+        void search_badRequest() throws Exception {
+            mockMvc.perform(get("/advance/search").param("diet", "GRASS"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).search(any(), any(), any(), any(), anyInt(), anyBoolean());
+        }
+
+        @Test
+        @DisplayName("Analytics binds the criteria and the group")
+        void analytics() throws Exception {
+            var group = new AnimalAnalytics.Group(2, 1, 3, 2.0, 24.0);
+            when(service.analytics(any(), any())).thenReturn(new AnimalAnalytics(5, 2, AnimalGroupByEnum.TYPE, Map.of("CAT", group)));
+
+            mockMvc.perform(get("/advance/analytics").param("maxAge", "3").param("groupBy", "TYPE"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.groups.CAT.averageAgeInHumanYears").value(24.0));
+
+            verify(service).analytics(AnimalSearch.builder().maxAge(3).build(), AnimalGroupByEnum.TYPE);
+        }
+
+        @Test
+        @DisplayName("Analytics - unknown group")
+        void analytics_badRequest() throws Exception {
+            mockMvc.perform(get("/advance/analytics").param("groupBy", "COLOR"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).analytics(any(), any());
+        }
     }
 
 }
\ No newline at end of file
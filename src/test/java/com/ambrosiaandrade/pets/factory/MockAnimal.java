@@ -77,7 +77,7 @@ public class MockAnimal {
     }
 
     public static AnimalEntity generateEntity() {
-        return new AnimalEntity(1, "bob", 1, 1, LocalDate.now(), AnimalTypeEnum.CAT, AnimalDietEnum.OMNIVOROUS, AnimalGenderEnum.FEMALE, LocalDate.now());
+        return new AnimalEntity(1, 0, "bob", 1, 1, LocalDate.now(), AnimalTypeEnum.CAT, AnimalDietEnum.OMNIVOROUS, AnimalGenderEnum.FEMALE, LocalDate.now(), null);
     }
 
 }
@@ -0,0 +1,105 @@
+package com.ambrosiaandrade.pets.listener;
+
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.config.KafkaProperties;
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.ambrosiaandrade.pets.factory.MockAnimal;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalInvalidation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.CAT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalInvalidationListenerTest {
+
+    private static final String ALL_DATA_KEY = "all";
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KafkaProperties properties;
+    private Cache allData;
+    private Cache animals;
+    private AnimalInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        var cacheManager = new ConcurrentMapCacheManager(CacheConfig.ALL_DATA, CacheConfig.ANIMAL);
+        allData = cacheManager.getCache(CacheConfig.ALL_DATA);
+        animals = cacheManager.getCache(CacheConfig.ANIMAL);
+        allData.put(ALL_DATA_KEY, List.of());
+        animals.put(1, animal(1, 2));
+        animals.put(2, animal(2, 2));
+
+        properties = new KafkaProperties();
+        listener = new AnimalInvalidationListener(cacheManager, eventPublisher, properties, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Invalidation - evicts the ids older than the message")
+    void consume_evictsOlderVersions() throws Exception {
+        listener.consume(message(new AnimalInvalidation("other", AnimalChangeEnum.UPDATED, List.of(1, 2), List.of(3L, 2L))));
+
+        assertNull(allData.get(ALL_DATA_KEY));
+        assertNull(animals.get(1));
+        // Already at the version of the message
+        assertNotNull(animals.get(2));
+
+        var event = ArgumentCaptor.forClass(AnimalChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isRemote());
+        assertEquals(List.of(1, 2), event.getValue().getIds());
+    }
+
+    @Test
+    @DisplayName("Invalidation - unknown versions and bulk changes always evict")
+    void consume_withoutVersions() throws Exception {
+        listener.consume(message(new AnimalInvalidation("other", AnimalChangeEnum.DELETED, List.of(2), null)));
+
+        assertNotNull(animals.get(1));
+        assertNull(animals.get(2));
+
+        listener.consume(message(new AnimalInvalidation("other", AnimalChangeEnum.BULK, null, null)));
+
+        assertNull(animals.get(1));
+    }
+
+    @Test
+    @DisplayName("Invalidation - own messages are ignored")
+    void consume_ownMessage() throws Exception {
+        listener.consume(message(new AnimalInvalidation(properties.getInstanceId(), AnimalChangeEnum.BULK, null, null)));
+
+        assertNotNull(allData.get(ALL_DATA_KEY));
+        assertNotNull(animals.get(1));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private String message(AnimalInvalidation invalidation) throws Exception {
+        return objectMapper.writeValueAsString(invalidation);
+    }
+
+    private static Animal animal(int id, long version) {
+        Animal animal = MockAnimal.generateAnimal(CAT);
+        animal.setId(id);
+        animal.setVersion(version);
+        return animal;
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.models.KeysetCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads {@code query-plan.rows} animals and checks with EXPLAIN that the repository queries
+ * read through the indexes declared on AnimalEntity. The default size keeps the build fast,
+ * the {@code query-plan} profile runs it alone with a few million rows.
+ */
+@Slf4j
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.ambrosiaandrade.pets.repositories.AnimalQueryPlanTest$CapturedSql")
+// Every insert chunk is committed, one transaction with millions of rows is much slower in H2
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AnimalQueryPlanTest {
+
+    private static final int CHUNK_SIZE = 100_000;
+    private static boolean loaded;
+
+    @Autowired
+    private AnimalRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${query-plan.rows:20000}")
+    private int rows;
+
+    /**
+     * Keeps the SQL Hibernate sends, so the generated statements are the ones explained.
+     */
+    public static class CapturedSql implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        CapturedSql.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("Query plan - animals by type")
+    void findModelsByType() {
+        String plan = explain(() -> repository.findModelsByType(AnimalTypeEnum.CAT));
+
+        assertIndexSeek(plan, "IDX_ANIMAL_TYPE_DIET_GENDER");
+    }
+
+    @Test
+    @DisplayName("Query plan - /advance/pagination sorted by birthday and age in human years")
+    void findAllModels_sorted() {
+        String byBirthday = explain(() -> repository.findAllModels(PageRequest.of(100, 20, Sort.by("birthday"))), 0);
+        String byAge = explain(() -> repository.findAllModels(PageRequest.of(100, 20, Sort.by(Sort.Direction.DESC, "ageInHumanYears"))), 0);
+
+        assertIndexSorted(byBirthday, "IDX_ANIMAL_BIRTHDAY");
+        assertIndexSorted(byAge, "IDX_ANIMAL_AGE_IN_HUMAN_YEARS");
+    }
+
+    @Test
+    @DisplayName("Query plan - keyset pages seek the (column, id) index")
+    void findPageAfter() {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            var byBirthday = new KeysetCursor(AnimalSortEnum.BIRTHDAY, direction, "2015-06-01", rows / 2);
+            var byName = new KeysetCursor(AnimalSortEnum.NAME, direction, "Animal5", rows / 2);
+            var byAge = new KeysetCursor(AnimalSortEnum.AGE_IN_HUMAN_YEARS, direction, "50", rows / 2);
+
+            assertIndexSorted(explain(() -> repository.findPageAfter(null, AnimalSortEnum.BIRTHDAY, direction, null, 20)), "IDX_ANIMAL_BIRTHDAY");
+            assertIndexSorted(explain(() -> repository.findPageAfter(null, AnimalSortEnum.BIRTHDAY, direction, byBirthday, 20)), "IDX_ANIMAL_BIRTHDAY");
+            assertIndexSeek(explain(() -> repository.findPageAfter(null, AnimalSortEnum.NAME, direction, byName, 20)), "IDX_ANIMAL_NAME");
+            assertIndexSeek(explain(() -> repository.findPageAfter(null, AnimalSortEnum.AGE_IN_HUMAN_YEARS, direction, byAge, 20)), "IDX_ANIMAL_AGE_IN_HUMAN_YEARS");
+        }
+    }
+
+    @Test
+    @DisplayName("Query plan - /advance/search criteria are filtered by the indexes")
+    void findPageAfter_search() {
+        var byTypeDietGender = AnimalSearch.builder().type(AnimalTypeEnum.DOG).diet(AnimalDietEnum.OMNIVOROUS).gender(AnimalGenderEnum.UNKNOWN).build();
+        var byAge = AnimalSearch.builder().minAge(18).build();
+        var byBirthday = AnimalSearch.builder().bornFrom(LocalDate.now().minusDays(30)).build();
+        var byName = AnimalSearch.builder().name("Animal123").build();
+
+        assertIndexSeek(explain(() -> repository.findPageAfter(AnimalSpecifications.of(byTypeDietGender), AnimalSortEnum.ID, Sort.Direction.ASC, null, 20)), "IDX_ANIMAL_TYPE_DIET_GENDER");
+        assertIndexSeek(explain(() -> repository.findPageAfter(AnimalSpecifications.of(byAge), AnimalSortEnum.ID, Sort.Direction.ASC, null, 20)), "IDX_ANIMAL_AGE");
+        assertIndexSeek(explain(() -> repository.findPageAfter(AnimalSpecifications.of(byBirthday), AnimalSortEnum.ID, Sort.Direction.ASC, null, 20)), "IDX_ANIMAL_BIRTHDAY");
+        assertIndexSeek(explain(() -> repository.findPageAfter(AnimalSpecifications.of(byName), AnimalSortEnum.NAME, Sort.Direction.ASC, null, 20)), "IDX_ANIMAL_NAME");
+        assertIndexSeek(explain(() -> repository.count(AnimalSpecifications.of(byAge))), "IDX_ANIMAL_AGE");
+    }
+
+    @Test
+    @DisplayName("Query plan - created at range of the bulk statements")
+    void deleteByFilter_createdAt() {
+        // Nothing was created in the future, so the statement runs without deleting rows
+        var filter = new AnimalFilter(null, null, null, LocalDate.now().plusYears(1), null);
+
+        String plan = explain(() -> repository.deleteByFilter(filter));
+
+        assertIndexSeek(plan, "IDX_ANIMAL_CREATED_AT");
+    }
+
+    /**
+     * Runs the call and explains its last statement, or the given one when it sends several.
+     */
+    private String explain(Runnable call) {
+        return explain(call, -1);
+    }
+
+    private String explain(Runnable call, int statement) {
+        CapturedSql.STATEMENTS.clear();
+        long start = System.nanoTime();
+        call.run();
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        var statements = List.copyOf(CapturedSql.STATEMENTS);
+        String sql = statements.get(statement < 0 ? statements.size() - 1 : statement);
+        // H2 explains statements with unset parameters
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+        log.info("[QueryPlan] {} us over {} rows\n{}", elapsedMicros, rows, plan);
+        return plan;
+    }
+
+    private static void assertIndexSeek(String plan, String index) {
+        assertTrue(plan.contains("PUBLIC." + index + ": "), () -> "Expected a seek on " + index + " in\n" + plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private static void assertIndexSorted(String plan, String index) {
+        assertTrue(plan.contains("PUBLIC." + index), () -> "Expected " + index + " in\n" + plan);
+        assertTrue(plan.contains("/* index sorted */"), () -> "Expected the rows sorted by the index in\n" + plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        repository.deleteAllInBatch();
+        for (int from = 1; from <= rows; from += CHUNK_SIZE) {
+            // About 20 years of birthdays and 10 of creation dates, spread over the ids
+            jdbcTemplate.update("""
+                    insert into animal (id, version, name, age, age_in_human_years, birthday, type, diet, gender, created_at)
+                    select x, 0, 'Animal' || x, mod(x, 20), mod(x, 100), dateadd('DAY', -mod(x * 7919, 7300), current_date),
+                           case mod(x, 3) when 0 then 'CAT' when 1 then 'DOG' else 'OTHER' end,
+                           'OMNIVOROUS', 'UNKNOWN', dateadd('DAY', -mod(x, 3650), current_date)
+                    from system_range(?, ?)
+                    """, from, Math.min(from + CHUNK_SIZE - 1, rows));
+        }
+        // Fresh statistics, the planner would otherwise guess the selectivity
+        jdbcTemplate.execute("analyze");
+        log.info("[QueryPlan] Loaded {} animals in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.factory.MockAnimal;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalRepositoryCustomImplTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    private AnimalRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() throws NoSuchFieldException, IllegalAccessException {
+        repository = new AnimalRepositoryCustomImpl();
+        setField("entityManager", entityManager);
+        setField("batchSize", 2);
+    }
+
+    @Test
+    void saveAllInBatches_flushesEveryBatch() {
+        List<AnimalEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entities.add(MockAnimal.generateEntity());
+        }
+
+        int result = repository.saveAllInBatches(entities);
+
+        assertEquals(5, result);
+        verify(entityManager, times(5)).persist(any(AnimalEntity.class));
+        // two full batches plus the remainder
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void saveAllInBatches_empty() {
+        int result = repository.saveAllInBatches(List.of());
+
+        assertEquals(0, result);
+        verify(entityManager, times(0)).persist(any());
+    }
+
+    private void setField(String name, Object value) throws NoSuchFieldException, IllegalAccessException {
+        Field field = AnimalRepositoryCustomImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(repository, value);
+    }
+
+}
@@ -0,0 +1,337 @@
+package com.ambrosiaandrade.pets.repositories;
+
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalBirthday;
+import com.ambrosiaandrade.pets.models.AnimalBulkUpdate;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.models.AnimalStats;
+import com.ambrosiaandrade.pets.models.KeysetCursor;
+import com.ambrosiaandrade.pets.service.CatSpeciesRules;
+import com.ambrosiaandrade.pets.service.DogSpeciesRules;
+import com.ambrosiaandrade.pets.service.OtherSpeciesRules;
+import com.ambrosiaandrade.pets.service.SpeciesRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class AnimalRepositoryTest {
+
+    private static final SpeciesRegistry SPECIES = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    @Autowired
+    private AnimalRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void saveAllInBatches_assignsIds() {
+        List<AnimalEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            entities.add(entity("Rex" + i, AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS));
+        }
+
+        int saved = repository.saveAllInBatches(entities);
+
+        assertEquals(120, saved);
+        assertEquals(120, repository.count());
+        assertTrue(entities.stream().allMatch(entity -> entity.getId() > 0));
+    }
+
+    @Test
+    void deleteByIds() {
+        var saved = repository.saveAll(List.of(
+                entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS),
+                entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS)));
+
+        int deleted = repository.deleteByIds(List.of(saved.get(0).getId(), -1));
+
+        assertEquals(1, deleted);
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void deleteByFilter() {
+        repository.saveAll(List.of(
+                entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS),
+                entity("Kitty", AnimalTypeEnum.CAT, AnimalDietEnum.OMNIVOROUS),
+                entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS)));
+
+        int deleted = repository.deleteByFilter(new AnimalFilter(null, AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS, null, LocalDate.now()));
+
+        assertEquals(1, deleted);
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void updateByFilter() {
+        repository.saveAll(List.of(
+                entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS),
+                entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS),
+                entity("Bolt", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS)));
+
+        int updated = repository.updateByFilter(
+                new AnimalFilter(null, AnimalTypeEnum.DOG, null, LocalDate.now().minusDays(1), null),
+                new AnimalBulkUpdate("Buddy", AnimalDietEnum.HERBICOROUS, AnimalGenderEnum.MALE));
+
+        assertEquals(2, updated);
+        var dogs = repository.findByType(AnimalTypeEnum.DOG);
+        assertTrue(dogs.stream().allMatch(dog -> dog.getName().equals("Buddy")
+                && dog.getDiet() == AnimalDietEnum.HERBICOROUS
+                && dog.getGender() == AnimalGenderEnum.MALE));
+        assertEquals(AnimalDietEnum.CARNIVOROUS, repository.findByType(AnimalTypeEnum.CAT).get(0).getDiet());
+    }
+
+    @Test
+    void patchById_onlyInformedFields() {
+        var tom = repository.save(entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS));
+
+        var returned = repository.patchById(tom.getId(), new AnimalPatch("Garfield", null, null, null, AnimalGenderEnum.MALE), 0, SPECIES::get, null).orElseThrow();
+
+        assertEquals(1L, returned.getVersion());
+        assertEquals("Garfield", returned.getName());
+        var patched = repository.findById(tom.getId()).orElseThrow();
+        assertEquals("Garfield", patched.getName());
+        assertEquals(AnimalGenderEnum.MALE, patched.getGender());
+        assertEquals(AnimalDietEnum.CARNIVOROUS, patched.getDiet());
+        assertEquals(28, patched.getAgeInHumanYears());
+        assertEquals(Optional.empty(), repository.patchById(-1, new AnimalPatch("Garfield", null, null, null, null), 0, SPECIES::get, null));
+    }
+
+    @Test
+    void patchById_recalculatesAges() {
+        var tom = repository.save(entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS));
+        var rex = repository.save(entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS));
+
+        // Type only: recalculated from the stored age (3)
+        repository.patchById(tom.getId(), new AnimalPatch(null, null, AnimalTypeEnum.OTHER, null, null), 0, SPECIES::get, null);
+        // Birthday only: the stored type decides
+        repository.patchById(rex.getId(), new AnimalPatch(null, LocalDate.now().minusYears(1), null, null, null), 1, SPECIES::get, null);
+
+        var other = repository.findById(tom.getId()).orElseThrow();
+        assertEquals(AnimalTypeEnum.OTHER, other.getType());
+        assertEquals(3, other.getAgeInHumanYears());
+        var dog = repository.findById(rex.getId()).orElseThrow();
+        assertEquals(1, dog.getAge());
+        assertEquals(15, dog.getAgeInHumanYears());
+
+        // Both: calculated before the statement
+        repository.patchById(rex.getId(), new AnimalPatch(null, LocalDate.now().minusYears(5), AnimalTypeEnum.CAT, null, null), 5, SPECIES::get, null);
+        repository.patchById(tom.getId(), new AnimalPatch(null, null, AnimalTypeEnum.DOG, null, null), 0, SPECIES::get, null);
+
+        assertEquals(36, repository.findById(rex.getId()).orElseThrow().getAgeInHumanYears());
+        assertEquals(28, repository.findById(tom.getId()).orElseThrow().getAgeInHumanYears());
+    }
+
+    @Test
+    void patchById_checksAndIncrementsVersion() {
+        var tom = repository.save(entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS));
+        var patch = new AnimalPatch("Garfield", null, null, null, null);
+
+        assertEquals(1L, repository.patchById(tom.getId(), patch, 0, SPECIES::get, 0L).orElseThrow().getVersion());
+        assertEquals(Optional.empty(), repository.patchById(tom.getId(), patch, 0, SPECIES::get, 0L));
+        assertEquals(1, repository.findById(tom.getId()).orElseThrow().getVersion());
+        assertEquals(0, repository.deleteByIdAndVersion(tom.getId(), 0));
+        assertEquals(1, repository.deleteByIdAndVersion(tom.getId(), 1));
+    }
+
+    @Test
+    void findPageAfter_walksEveryRowOnce() {
+        List<AnimalEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            var entity = entity("Rex" + (i % 3), AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS);
+            // Rows sharing birthdays and ages, so the id breaks the ties
+            entity.setBirthday(LocalDate.of(2020, 1, 1 + i % 2));
+            entity.setAgeInHumanYears(i % 2);
+            entities.add(entity);
+        }
+        repository.saveAll(entities);
+
+        for (AnimalSortEnum sort : AnimalSortEnum.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                List<Integer> seen = new ArrayList<>();
+                KeysetCursor after = null;
+                List<Animal> page;
+                do {
+                    page = repository.findPageAfter(null, sort, direction, after, 2);
+                    page.forEach(animal -> seen.add(animal.getId()));
+                    if (!page.isEmpty()) {
+                        var last = page.get(page.size() - 1);
+                        after = new KeysetCursor(sort, direction, sort.format(last), last.getId());
+                    }
+                } while (page.size() == 2);
+
+                assertEquals(7, seen.size(), sort + " " + direction);
+                assertEquals(7, seen.stream().distinct().count(), sort + " " + direction);
+            }
+        }
+    }
+
+    @Test
+    void findPageAfter_withSearchSpecification() {
+        var tom = entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS);
+        tom.setGender(AnimalGenderEnum.MALE);
+        var tomas = entity("Tomas", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS);
+        tomas.setAge(8);
+        tomas.setBirthday(LocalDate.now().minusYears(8));
+        var percent = entity("To%", AnimalTypeEnum.CAT, AnimalDietEnum.OMNIVOROUS);
+        repository.saveAll(List.of(tom, tomas, percent, entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.CARNIVOROUS)));
+
+        assertEquals(List.of("To%", "Tom", "Tomas"), names(AnimalSearch.builder().type(AnimalTypeEnum.CAT).build()));
+        assertEquals(List.of("Tom", "Tomas"), names(AnimalSearch.builder().type(AnimalTypeEnum.CAT).diet(AnimalDietEnum.CARNIVOROUS).build()));
+        assertEquals(List.of("Tom"), names(AnimalSearch.builder().gender(AnimalGenderEnum.MALE).build()));
+        assertEquals(List.of("Tomas"), names(AnimalSearch.builder().minAge(5).build()));
+        assertEquals(List.of("Rex", "To%", "Tom"), names(AnimalSearch.builder().maxAge(3).minAgeInHumanYears(28).maxAgeInHumanYears(28).build()));
+        assertEquals(List.of("Tomas"), names(AnimalSearch.builder().bornTo(LocalDate.now().minusYears(5)).build()));
+        assertEquals(List.of("Tom", "Tomas"), names(AnimalSearch.builder().name("Tom").build()));
+        // The wildcard is matched literally
+        assertEquals(List.of("To%"), names(AnimalSearch.builder().name("To%").build()));
+        assertEquals(4, names(new AnimalSearch()).size());
+        assertEquals(2, repository.count(AnimalSpecifications.of(AnimalSearch.builder().name("Tom").build())));
+    }
+
+    @Test
+    void countByTypeDietGenderAndAge() {
+        var old = entity("Tomas", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS);
+        old.setAge(8);
+        repository.saveAll(List.of(
+                entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS),
+                entity("Kitty", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS),
+                old,
+                entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS)));
+
+        var counts = repository.countByTypeDietGenderAndAge();
+
+        assertEquals(3, counts.size());
+        var stats = AnimalStats.of(counts);
+        assertEquals(4, stats.getTotal());
+        assertEquals(3, stats.getByType().get(AnimalTypeEnum.CAT));
+        assertEquals(1, stats.getByDiet().get(AnimalDietEnum.OMNIVOROUS));
+        assertEquals(4, stats.getByGender().get(AnimalGenderEnum.UNKNOWN));
+        assertEquals(Map.of(3, 3L, 8, 1L), stats.getByAge());
+    }
+
+    @Test
+    void findBirthdaysAfter_andUpdateAges() {
+        var tom = entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS);
+        tom.setBirthday(LocalDate.of(2020, 2, 29));
+        var rex = entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS);
+        rex.setBirthday(LocalDate.of(2019, 3, 1));
+        var nemo = entity("Nemo", AnimalTypeEnum.OTHER, AnimalDietEnum.OMNIVOROUS);
+        nemo.setBirthday(LocalDate.of(2018, 7, 15));
+        repository.saveAllAndFlush(List.of(tom, rex, nemo));
+
+        var anniversaries = repository.findBirthdaysAfter(List.of(229, 301), 0, Limit.of(10));
+        assertEquals(List.of(tom.getId(), rex.getId()), anniversaries.stream().map(AnimalBirthday::getId).toList());
+        assertEquals(List.of(rex.getId()), repository.findBirthdaysAfter(List.of(229, 301), tom.getId(), Limit.of(10)).stream().map(AnimalBirthday::getId).toList());
+        assertEquals(2, repository.findBirthdaysAfter(0, Limit.of(2)).size());
+
+        // Rex's birthday changed after it was read, its row is left alone
+        var stale = new AnimalBirthday(rex.getId(), LocalDate.of(2000, 1, 1), AnimalTypeEnum.DOG);
+        int updated = repository.updateAges(List.of(anniversaries.get(0), stale), new int[]{5, 9}, new int[]{36, 52});
+
+        assertEquals(1, updated);
+        var refreshed = repository.findModelById(tom.getId()).orElseThrow();
+        assertEquals(5, refreshed.getAge());
+        assertEquals(36, refreshed.getAgeInHumanYears());
+        assertEquals(tom.getVersion() + 1, refreshed.getVersion());
+        assertEquals(3, repository.findModelById(rex.getId()).orElseThrow().getAge());
+
+        // Ages already current, the row keeps its version
+        assertEquals(0, repository.updateAges(List.of(anniversaries.get(0)), new int[]{5}, new int[]{36}));
+        assertEquals(tom.getVersion() + 1, repository.findModelById(tom.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void projections_matchEntities() {
+        var tom = repository.save(entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS));
+        repository.save(entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS));
+
+        var model = repository.findModelById(tom.getId()).orElseThrow();
+
+        assertEquals("Tom", model.getName());
+        assertEquals(3, model.getAge());
+        assertEquals(28, model.getAgeInHumanYears());
+        assertEquals(tom.getBirthday(), model.getBirthday());
+        assertEquals(tom.getVersion(), model.getVersion());
+        assertEquals(2, repository.findAllModels().size());
+        assertEquals(1, repository.findModelsByType(AnimalTypeEnum.DOG).size());
+        var after = repository.findModelsAfter(Integer.MIN_VALUE, Limit.of(1));
+        assertEquals(List.of(tom.getId()), after.stream().map(Animal::getId).toList());
+        assertEquals(List.of("Rex"), repository.findModelsAfter(tom.getId(), Limit.of(10)).stream().map(Animal::getName).toList());
+        assertEquals(2, repository.findAllModels(PageRequest.of(0, 1, Sort.by("name"))).getTotalElements());
+        assertEquals("Rex", repository.findAllModels(PageRequest.of(0, 1, Sort.by("name"))).getContent().get(0).getName());
+    }
+
+    @Test
+    void names_sharedByTheRowsRead() {
+        repository.saveAllAndFlush(List.of(
+                entity(new String("Rex".toCharArray()), AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS),
+                entity(new String("Rex".toCharArray()), AnimalTypeEnum.DOG, AnimalDietEnum.CARNIVOROUS)));
+        entityManager.clear();
+
+        var models = repository.findModelsByType(AnimalTypeEnum.DOG);
+        var entities = repository.findByType(AnimalTypeEnum.DOG);
+
+        assertSame(models.get(0).getName(), models.get(1).getName());
+        assertSame(models.get(0).getName(), entities.get(0).getName());
+        assertSame(models.get(0).getName(), entities.get(1).getName());
+    }
+
+    @Test
+    void streamAllModels_orderedById() {
+        var saved = repository.saveAll(List.of(
+                entity("Tom", AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS),
+                entity("Rex", AnimalTypeEnum.DOG, AnimalDietEnum.OMNIVOROUS),
+                entity("Nemo", AnimalTypeEnum.OTHER, AnimalDietEnum.OMNIVOROUS)));
+
+        // @DataJpaTest runs every test in a transaction, which the stream needs
+        try (var animals = repository.streamAllModels()) {
+            assertEquals(saved.stream().map(AnimalEntity::getId).sorted().toList(), animals.map(Animal::getId).toList());
+        }
+    }
+
+    private List<String> names(AnimalSearch search) {
+        return repository.findPageAfter(AnimalSpecifications.of(search), AnimalSortEnum.NAME, Sort.Direction.ASC, null, 10)
+                .stream().map(Animal::getName).toList();
+    }
+
+    private AnimalEntity entity(String name, AnimalTypeEnum type, AnimalDietEnum diet) {
+        return AnimalEntity.builder()
+                .name(name)
+                .age(3)
+                .ageInHumanYears(28)
+                .birthday(LocalDate.now().minusYears(3))
+                .type(type)
+                .diet(diet)
+                .gender(AnimalGenderEnum.UNKNOWN)
+                .build();
+    }
+
+}
@@ -1,11 +1,19 @@
 package com.ambrosiaandrade.pets.service;
 
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalSortEnum;
 import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
 import com.ambrosiaandrade.pets.factory.MockAnimal;
 import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.models.KeysetCursor;
+import com.ambrosiaandrade.pets.models.KeysetPage;
 import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,22 +21,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
@@ -44,14 +58,23 @@ class AdvanceServiceTest {
     @Mock
     private AdvanceUtil util;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AnimalColumnarSnapshot columnarSnapshot;
+
     @InjectMocks
     private AdvanceService service;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() throws NoSuchFieldException, IllegalAccessException {
         MockitoAnnotations.openMocks(this);
         mapper = Mappers.getMapper(IAnimalMapper.class);
-        service = new AdvanceService(repository, mapper, util);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new AdvanceService(repository, util, eventPublisher, meterRegistry, columnarSnapshot);
 
         Field field = AdvanceService.class.getDeclaredField("animalLimit");
         field.setAccessible(true);
@@ -71,12 +94,12 @@ class AdvanceServiceTest {
                 when(repository.count()).thenReturn(2000L);
                 var result = service.generateAnimalsAndSave(number);
                 assertEquals(1, result.size());
-                verify(repository, times(0)).saveAll(anyList());
+                verify(repository, times(0)).saveAllInBatches(anyList());
             } else {
                 when(repository.count()).thenReturn(100L);
                 var result = service.generateAnimalsAndSave(number);
                 assertEquals(3, result.size());
-                verify(repository, times(3)).saveAll(anyList());
+                verify(repository, times(3)).saveAllInBatches(anyList());
             }
 
         }
@@ -94,7 +117,7 @@ class AdvanceServiceTest {
             service.generateAnimalsAndSave(number);
 
             verify(util).generateAnimalsWithFor(number);
-            verify(repository, never()).saveAll(any());
+            verify(repository, never()).saveAllInBatches(any());
         }
     }
 
@@ -103,9 +126,8 @@ class AdvanceServiceTest {
 
         @Test
         void getDataNoPagination() {
-            AnimalEntity entity = getAnimalEntity();
-            List<AnimalEntity> entities = Collections.singletonList(entity);
-            when(repository.findAll()).thenReturn(entities);
+            List<Animal> animals = Collections.singletonList(mapper.toModel(getAnimalEntity()));
+            when(repository.findAllModels()).thenReturn(animals);
 
             List<Animal> result = service.getDataNoPagination();
 
@@ -114,9 +136,8 @@ class AdvanceServiceTest {
 
         @Test
         void getDataNoPaginationButWithCache() {
-            AnimalEntity entity = getAnimalEntity();
-            List<AnimalEntity> entities = Collections.singletonList(entity);
-            when(repository.findAll()).thenReturn(entities);
+            List<Animal> animals = Collections.singletonList(mapper.toModel(getAnimalEntity()));
+            when(repository.findAllModels()).thenReturn(animals);
 
             List<Animal> result = service.getDataNoPaginationButWithCache();
 
@@ -126,15 +147,116 @@ class AdvanceServiceTest {
         @Test
         void getDataWithPagination() {
             Pageable pageable = mock(Pageable.class);
-            AnimalEntity entity = getAnimalEntity();
-            Page<AnimalEntity> page = new PageImpl<>(Collections.singletonList(entity));
-            when(repository.findAll(pageable)).thenReturn(page);
+            Page<Animal> page = new PageImpl<>(Collections.singletonList(mapper.toModel(getAnimalEntity())));
+            when(repository.findAllModels(pageable)).thenReturn(page);
 
             Page<Animal> result = service.getDataWithPagination(pageable);
 
             assertEquals(1, result.getTotalElements());
         }
 
+        @Test
+        void getDataWithKeysetPagination_firstPage() {
+            Animal first = mapper.toModel(getAnimalEntity());
+            Animal second = mapper.toModel(getAnimalEntity());
+            second.setId(2);
+            second.setName("Zed");
+            when(repository.findPageAfter(null, AnimalSortEnum.NAME, Sort.Direction.ASC, null, 2))
+                    .thenReturn(List.of(first, second));
+
+            KeysetPage<Animal> result = service.getDataWithKeysetPagination(null, AnimalSortEnum.NAME, Sort.Direction.ASC, 1, false);
+
+            assertEquals(1, result.getSize());
+            assertTrue(result.isHasNext());
+            assertNull(result.getTotalElements());
+            var cursor = KeysetCursor.decode(result.getNextCursor());
+            assertEquals(first.getName(), cursor.getValue());
+            assertEquals(first.getId(), cursor.getId());
+            verify(repository, never()).count();
+        }
+
+        @Test
+        void getDataWithKeysetPagination_nextPageUsesCursor() {
+            var cursor = new KeysetCursor(AnimalSortEnum.BIRTHDAY, Sort.Direction.DESC, null, 7);
+            when(repository.findPageAfter(isNull(), eq(AnimalSortEnum.BIRTHDAY), eq(Sort.Direction.DESC), eq(cursor), anyInt()))
+                    .thenReturn(List.of(mapper.toModel(getAnimalEntity())));
+            when(repository.count()).thenReturn(8L);
+
+            KeysetPage<Animal> result = service.getDataWithKeysetPagination(cursor.encode(), AnimalSortEnum.ID, Sort.Direction.ASC, 20, true);
+
+            assertFalse(result.isHasNext());
+            assertNull(result.getNextCursor());
+            assertEquals(8L, result.getTotalElements());
+        }
+
+        @Test
+        void getDataWithKeysetPagination_invalidCursor() {
+            assertThrows(BaseException.class,
+                    () -> service.getDataWithKeysetPagination("bm9wZQ", AnimalSortEnum.ID, Sort.Direction.ASC, 20, false));
+            assertThrows(BaseException.class,
+                    () -> service.getDataWithKeysetPagination("%%%", AnimalSortEnum.ID, Sort.Direction.ASC, 20, false));
+        }
+
+        @Test
+        void getDataWithKeysetPagination_invalidBirthdayCursor() {
+            var cursor = new KeysetCursor(AnimalSortEnum.BIRTHDAY, Sort.Direction.ASC, "2020-13-45", 7).encode();
+
+            var e = assertThrows(BaseException.class,
+                    () -> service.getDataWithKeysetPagination(cursor, AnimalSortEnum.ID, Sort.Direction.ASC, 20, false));
+
+            assertEquals(400, e.getStatusCode());
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void search_filtersWithSpecificationAndTimesTheShape() {
+            var search = AnimalSearch.builder().type(AnimalTypeEnum.CAT).minAge(2).name("To").build();
+            when(repository.findPageAfter(notNull(), eq(AnimalSortEnum.NAME), eq(Sort.Direction.ASC), isNull(), eq(21)))
+                    .thenReturn(List.of(mapper.toModel(getAnimalEntity())));
+            when(repository.count(ArgumentMatchers.<Specification<AnimalEntity>>any())).thenReturn(1L);
+
+            KeysetPage<Animal> result = service.search(search, null, AnimalSortEnum.NAME, Sort.Direction.ASC, 20, true);
+
+            assertEquals(1, result.getSize());
+            assertEquals(1L, result.getTotalElements());
+            verify(repository, never()).count();
+            var timer = meterRegistry.get(AdvanceService.SEARCH_METRIC).tag("shape", "type+age+name").tag("sort", "NAME").timer();
+            assertEquals(1, timer.count());
+        }
+
+        @Test
+        void search_sortOfTheCursorWins() {
+            var cursor = new KeysetCursor(AnimalSortEnum.BIRTHDAY, Sort.Direction.DESC, "2020-01-01", 7);
+            when(repository.findPageAfter(notNull(), eq(AnimalSortEnum.BIRTHDAY), eq(Sort.Direction.DESC), eq(cursor), anyInt()))
+                    .thenReturn(List.of());
+
+            KeysetPage<Animal> result = service.search(new AnimalSearch(), cursor.encode(), AnimalSortEnum.ID, Sort.Direction.ASC, 20, false);
+
+            assertFalse(result.isHasNext());
+            assertEquals(1, meterRegistry.get(AdvanceService.SEARCH_METRIC).tag("shape", "none").tag("sort", "BIRTHDAY").timer().count());
+            assertThrows(BaseException.class,
+                    () -> service.search(new AnimalSearch(), "bm9wZQ", AnimalSortEnum.ID, Sort.Direction.ASC, 20, false));
+        }
+
+        @Test
+        void analytics_scansTheSnapshotAndTimesTheShape() {
+            var search = AnimalSearch.builder().type(AnimalTypeEnum.DOG).build();
+            var analytics = new AnimalAnalytics(10, 4, AnimalGroupByEnum.GENDER, Map.of());
+            when(columnarSnapshot.analyze(search, AnimalGroupByEnum.GENDER)).thenReturn(Optional.of(analytics));
+
+            assertSame(analytics, service.analytics(search, AnimalGroupByEnum.GENDER));
+            assertEquals(1, meterRegistry.get(AdvanceService.ANALYTICS_METRIC).tag("shape", "type").tag("groupBy", "GENDER").timer().count());
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void analytics_snapshotNotLoaded() {
+            when(columnarSnapshot.analyze(any(), any())).thenReturn(Optional.empty());
+
+            var exception = assertThrows(BaseException.class, () -> service.analytics(new AnimalSearch(), AnimalGroupByEnum.NONE));
+            assertEquals(503, exception.getStatusCode());
+        }
+
     }
 
     private AnimalEntity getAnimalEntity() {
@@ -1,13 +1,17 @@
 package com.ambrosiaandrade.pets.service;
 
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
-import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mapstruct.factory.Mappers;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -16,13 +20,30 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 @ExtendWith(MockitoExtension.class)
 class AdvanceUtilTest {
 
+    private static final LocalDate TODAY = LocalDate.of(2025, 5, 10);
+
     private AdvanceUtil advanceUtil;
-    private IAnimalMapper mapper;
 
     @BeforeEach
     void setUp() {
-        mapper = Mappers.getMapper(IAnimalMapper.class);
-        advanceUtil = new AdvanceUtil(mapper);
+        var speciesRegistry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+        advanceUtil = new AdvanceUtil(speciesRegistry, Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("Generated animals are born today with the defaults of their species")
+    void testGenerateAnimals_speciesDefaults() {
+        List<AnimalEntity> result = advanceUtil.generateAnimalWithIntStream(200);
+
+        for (AnimalEntity entity : result) {
+            assertNotNull(entity.getName());
+            assertNotNull(entity.getGender());
+            assertEquals(TODAY, entity.getBirthday());
+            assertEquals(0, entity.getAge());
+            assertEquals(0, entity.getAgeInHumanYears());
+            assertEquals(entity.getType() == AnimalTypeEnum.CAT ? AnimalDietEnum.CARNIVOROUS : AnimalDietEnum.OMNIVOROUS, entity.getDiet());
+        }
+        assertEquals(AnimalTypeEnum.values().length, result.stream().map(AnimalEntity::getType).distinct().count());
     }
 
     @Test
@@ -31,7 +52,7 @@ class AdvanceUtilTest {
         List<AnimalEntity> result = advanceUtil.generateAnimalsWithFor(number);
 
         assertNotNull(result);
-        assertEquals(number + 1, result.size());
+        assertEquals(number, result.size());
     }
 
     @Test
@@ -40,7 +61,7 @@ class AdvanceUtilTest {
         List<AnimalEntity> result = advanceUtil.generateAnimalWithIntStream(number);
 
         assertNotNull(result);
-        assertEquals(number + 1, result.size());
+        assertEquals(number, result.size());
     }
 
     @Test
@@ -49,7 +70,7 @@ class AdvanceUtilTest {
         List<AnimalEntity> result = advanceUtil.generateAnimalWithIntStreamAndParallel(number);
 
         assertNotNull(result);
-        assertEquals(number + 1, result.size());
+        assertEquals(number, result.size());
     }
 
     @Test
@@ -58,7 +79,7 @@ class AdvanceUtilTest {
         List<AnimalEntity> result = advanceUtil.generateAnimalsWithFor(number);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(0, result.size());
     }
 
     @Test
@@ -67,7 +88,7 @@ class AdvanceUtilTest {
         List<AnimalEntity> result = advanceUtil.generateAnimalWithIntStream(number);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(0, result.size());
     }
 
     @Test
@@ -76,6 +97,6 @@ class AdvanceUtilTest {
         List<AnimalEntity> result = advanceUtil.generateAnimalWithIntStreamAndParallel(number);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(0, result.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.interfaces.ISpeciesRules;
+import com.ambrosiaandrade.pets.models.AnimalAges;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AgeCalculatorTest {
+
+    private static final ZoneId ZONE = ZoneOffset.ofHours(-3);
+    private static final LocalDate TODAY = LocalDate.of(2024, 2, 29);
+
+    private final AgeCalculator calculator = new AgeCalculator(Clock.fixed(TODAY.atTime(12, 0).atZone(ZONE).toInstant(), ZONE));
+    private final SpeciesRegistry speciesRegistry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    @Test
+    @DisplayName("Years are the same as Period.between, also on leap days and for future birthdays")
+    void years_matchPeriod() {
+        var random = new Random(42);
+        int count = 20_000;
+        int[] birthdays = new int[count];
+        ISpeciesRules[] rules = new ISpeciesRules[count];
+        for (int i = 0; i < count; i++) {
+            birthdays[i] = (int) TODAY.toEpochDay() - 12_000 + random.nextInt(14_000);
+            rules[i] = speciesRegistry.get(AnimalTypeEnum.values()[i % 3]);
+        }
+        int[] ages = new int[count];
+        int[] agesInHumanYears = new int[count];
+
+        calculator.ages(birthdays, rules, ages, agesInHumanYears);
+
+        for (int i = 0; i < count; i++) {
+            var birthday = LocalDate.ofEpochDay(birthdays[i]);
+            int expected = Period.between(birthday, TODAY).getYears();
+            assertEquals(expected, calculator.years(birthday), birthday::toString);
+            assertEquals(expected, ages[i], birthday::toString);
+            assertEquals(rules[i].humanYears(expected), agesInHumanYears[i], birthday::toString);
+        }
+        assertEquals(0, AnimalAges.years(LocalDate.of(2023, 3, 1), LocalDate.of(2024, 2, 29)));
+        assertEquals(1, AnimalAges.years(LocalDate.of(2020, 2, 29), LocalDate.of(2021, 3, 1)));
+        assertEquals(0, AnimalAges.years(LocalDate.of(2020, 2, 29), LocalDate.of(2021, 2, 28)));
+    }
+
+    @Test
+    @DisplayName("Today is read again after midnight of the clock zone or when the clock goes back")
+    void today_refreshedAtMidnight() {
+        Clock clock = mock(Clock.class);
+        var beforeMidnight = LocalDateTime.of(2025, 5, 9, 23, 59, 59).atZone(ZONE).toInstant();
+        when(clock.getZone()).thenReturn(ZONE);
+        when(clock.instant()).thenReturn(beforeMidnight);
+        when(clock.millis()).thenReturn(beforeMidnight.toEpochMilli());
+        var ageCalculator = new AgeCalculator(clock);
+        var birthday = LocalDate.of(2020, 5, 10);
+
+        assertEquals(4, ageCalculator.years(birthday));
+
+        Instant midnight = beforeMidnight.plusSeconds(1);
+        when(clock.instant()).thenReturn(midnight);
+        when(clock.millis()).thenReturn(midnight.toEpochMilli());
+
+        assertEquals(5, ageCalculator.years(birthday));
+
+        when(clock.instant()).thenReturn(beforeMidnight);
+        when(clock.millis()).thenReturn(beforeMidnight.toEpochMilli());
+
+        assertEquals(4, ageCalculator.years(birthday));
+    }
+
+    @Test
+    @DisplayName("Days since the birthday, negative in the future")
+    void days() {
+        assertEquals(0, calculator.days(TODAY));
+        assertEquals(366, calculator.days(LocalDate.of(2023, 2, 28)));
+        assertEquals(-1, calculator.days(TODAY.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Bulk output arrays must fit every birthday")
+    void ages_arraysTooShort() {
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.ages(new int[2], new ISpeciesRules[2], new int[1], new int[2]));
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.AgeRefreshProperties;
+import com.ambrosiaandrade.pets.config.AnimalCacheProperties;
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.entities.AgeRefreshCheckpointEntity;
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.repositories.AgeRefreshCheckpointRepository;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@Import({AgeRefreshJob.class, AgeCalculator.class, SpeciesRegistry.class, CatSpeciesRules.class, DogSpeciesRules.class, OtherSpeciesRules.class,
+        AgeRefreshProperties.class, CacheConfig.class, AnimalCacheProperties.class, SimpleMeterRegistry.class, AgeRefreshJobTest.Config.class})
+// Disabled only keeps the startup and scheduled runs away, the tests call refresh themselves
+@TestPropertySource(properties = {"app.animal.age-refresh.enabled=false", "app.animal.age-refresh.chunk-size=2", "app.animal.age-refresh.parallelism=2"})
+// The chunks are written by the pool threads, each in its own transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AgeRefreshJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 2, 27);
+
+    @Autowired
+    private AgeRefreshJob job;
+
+    @Autowired
+    private AnimalRepository repository;
+
+    @Autowired
+    private AgeRefreshCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MovableClock clock;
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private AgeCalculator ageCalculator;
+
+    @Autowired
+    private SpeciesRegistry speciesRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AgeRefreshProperties properties;
+
+    static class MovableClock extends Clock {
+
+        private static final ZoneId ZONE = ZoneOffset.UTC;
+        private volatile Instant instant;
+
+        void set(LocalDate day) {
+            instant = day.atTime(0, 5).toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        final List<AnimalChangedEvent> events = new ArrayList<>();
+
+        @Bean
+        MovableClock clock() {
+            var clock = new MovableClock();
+            clock.set(TODAY);
+            return clock;
+        }
+
+        @EventListener
+        void onAnimalChanged(AnimalChangedEvent event) {
+            events.add(event);
+        }
+
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAllInBatch();
+        checkpointRepository.deleteAllInBatch();
+        config.events.clear();
+        cacheManager.getCache(CacheConfig.ANIMAL).clear();
+        clock.set(TODAY);
+    }
+
+    @Test
+    @DisplayName("First run refreshes every animal in chunks")
+    void refresh_firstRunRefreshesAll() {
+        var saved = save(LocalDate.of(2020, 1, 10), LocalDate.of(2019, 2, 28), LocalDate.of(2022, 3, 1),
+                LocalDate.of(2018, 12, 31), LocalDate.of(2024, 2, 29));
+        long runs = meterRegistry.get("animal.age.refresh.duration").timer().count();
+
+        assertEquals(5, job.refresh());
+
+        var ages = ages();
+        assertEquals(5, ages.get(saved.get(0).getId()).getAge());
+        assertEquals(36, ages.get(saved.get(0).getId()).getAgeInHumanYears());
+        assertEquals(5, ages.get(saved.get(1).getId()).getAge());
+        assertEquals(2, ages.get(saved.get(2).getId()).getAge());
+        assertEquals(0, ages.get(saved.get(4).getId()).getAge());
+        var checkpoint = checkpointRepository.findById(AgeRefreshJob.JOB).orElseThrow();
+        assertEquals(TODAY, checkpoint.getRefreshedUntil());
+        assertNull(checkpoint.getTarget());
+        assertEquals(1, config.events.size());
+        assertEquals(5, meterRegistry.get("animal.age.refresh.progress").gauge().value());
+        assertEquals(0, meterRegistry.get("animal.age.refresh.lag").gauge().value());
+        assertEquals(runs + 1, meterRegistry.get("animal.age.refresh.duration").timer().count());
+
+        // Nothing to do until tomorrow
+        assertEquals(0, job.refresh());
+        assertEquals(1, config.events.size());
+    }
+
+    @Test
+    @DisplayName("Next runs only touch the anniversaries since the last one")
+    void refresh_onlyAnniversaries() {
+        var saved = save(LocalDate.of(2020, 2, 28), LocalDate.of(2020, 2, 29), LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 2));
+        job.refresh();
+        var before = ages();
+
+        // 2025 isn't a leap year, 29 February birthdays turn older on 1 March
+        clock.set(LocalDate.of(2025, 3, 1));
+        assertEquals(3, job.refresh());
+
+        var after = ages();
+        for (AnimalEntity animal : saved) {
+            int id = animal.getId();
+            boolean anniversary = !animal.getBirthday().equals(LocalDate.of(2020, 3, 2));
+            assertEquals(before.get(id).getVersion() + (anniversary ? 1 : 0), after.get(id).getVersion(), animal.getBirthday().toString());
+            assertEquals(anniversary ? 5 : 4, after.get(id).getAge(), animal.getBirthday().toString());
+        }
+        assertEquals(LocalDate.of(2025, 3, 1), checkpointRepository.findById(AgeRefreshJob.JOB).orElseThrow().getRefreshedUntil());
+    }
+
+    @Test
+    @DisplayName("A run that updated animals evicts the cached ones, with their old ages and ETags")
+    void refresh_evictsCachedAnimals() {
+        int id = save(LocalDate.of(2020, 2, 27)).get(0).getId();
+        var cached = repository.findModelById(id).orElseThrow();
+        assertEquals(1, cached.getAge());
+
+        job.refresh();
+
+        var read = repository.findModelById(id).orElseThrow();
+        assertEquals(5, read.getAge());
+        assertEquals(cached.getVersion() + 1, read.getVersion());
+    }
+
+    @Test
+    @DisplayName("An interrupted run resumes after the last checkpointed id")
+    void refresh_resumesFromCheckpoint() {
+        var saved = save(LocalDate.of(2020, 2, 27), LocalDate.of(2020, 2, 27), LocalDate.of(2020, 2, 27));
+        int lastDone = saved.get(0).getId();
+        checkpointRepository.save(new AgeRefreshCheckpointEntity(AgeRefreshJob.JOB, TODAY.minusDays(1), TODAY, lastDone, null));
+
+        assertEquals(2, job.refresh());
+
+        var ages = ages();
+        assertEquals(1, ages.get(lastDone).getAge());
+        assertEquals(5, ages.get(saved.get(1).getId()).getAge());
+        assertEquals(5, ages.get(saved.get(2).getId()).getAge());
+        assertEquals(TODAY, checkpointRepository.findById(AgeRefreshJob.JOB).orElseThrow().getRefreshedUntil());
+    }
+
+    @Test
+    @DisplayName("A run stops when another instance saved the checkpoint meanwhile")
+    void refresh_stopsWhenAnotherInstanceTookOver() {
+        save(LocalDate.of(2020, 1, 10), LocalDate.of(2020, 1, 10), LocalDate.of(2020, 1, 10),
+                LocalDate.of(2020, 1, 10), LocalDate.of(2020, 1, 10));
+        var saves = new AtomicInteger();
+        var contended = mock(AgeRefreshCheckpointRepository.class, delegatesTo(checkpointRepository));
+        doAnswer(invocation -> {
+            if (saves.incrementAndGet() == 2) {
+                // The other instance resumes the run between the claim and the first group's checkpoint
+                var other = checkpointRepository.findById(AgeRefreshJob.JOB).orElseThrow();
+                other.setLastId(-1);
+                checkpointRepository.save(other);
+            }
+            return checkpointRepository.save(invocation.getArgument(0));
+        }).when(contended).save(any());
+        var instance = new AgeRefreshJob(repository, contended, ageCalculator, speciesRegistry, cacheManager,
+                eventPublisher, properties, clock, new SimpleMeterRegistry());
+
+        // The first group of two chunks was written before the conflict
+        assertEquals(4, instance.refresh());
+
+        var checkpoint = checkpointRepository.findById(AgeRefreshJob.JOB).orElseThrow();
+        assertEquals(-1, checkpoint.getLastId());
+        assertNull(checkpoint.getRefreshedUntil());
+        assertEquals(1, config.events.size());
+    }
+
+    @Test
+    @DisplayName("Anniversaries of a range of days")
+    void anniversaries() {
+        assertNull(AgeRefreshJob.anniversaries(null, TODAY));
+        assertNull(AgeRefreshJob.anniversaries(TODAY.minusYears(1), TODAY));
+        assertEquals(List.of(), List.copyOf(AgeRefreshJob.anniversaries(TODAY, TODAY)));
+        assertEquals(List.of(228, 229, 301), List.copyOf(AgeRefreshJob.anniversaries(TODAY, LocalDate.of(2025, 3, 1))));
+        assertEquals(List.of(229, 301), List.copyOf(AgeRefreshJob.anniversaries(LocalDate.of(2024, 2, 28), LocalDate.of(2024, 3, 1))));
+        assertEquals(List.of(101, 1231), List.copyOf(AgeRefreshJob.anniversaries(LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 1))));
+    }
+
+    private List<AnimalEntity> save(LocalDate... birthdays) {
+        List<AnimalEntity> entities = new ArrayList<>();
+        for (LocalDate birthday : birthdays) {
+            // Stale ages, as if saved long ago
+            entities.add(AnimalEntity.builder()
+                    .name("Tom")
+                    .age(1)
+                    .ageInHumanYears(15)
+                    .birthday(birthday)
+                    .type(AnimalTypeEnum.CAT)
+                    .diet(AnimalDietEnum.CARNIVOROUS)
+                    .gender(AnimalGenderEnum.UNKNOWN)
+                    .build());
+        }
+        return repository.saveAll(entities);
+    }
+
+    private Map<Integer, AnimalEntity> ages() {
+        return repository.findAll().stream().collect(Collectors.toMap(AnimalEntity::getId, Function.identity()));
+    }
+
+}
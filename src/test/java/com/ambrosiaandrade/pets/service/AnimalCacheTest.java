@@ -0,0 +1,221 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.AnimalCacheProperties;
+import com.ambrosiaandrade.pets.config.CacheConfig;
+import com.ambrosiaandrade.pets.config.ClockConfig;
+import com.ambrosiaandrade.pets.config.DatasetProperties;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.factory.MockAnimal;
+import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.DatasetSpec;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig({CacheConfig.class, AdvanceService.class, AnimalService.class, AnimalCollectionVersion.class, AnimalJsonCache.class, JacksonAutoConfiguration.class, SimpleMeterRegistry.class, ClockConfig.class, AgeCalculator.class,
+        SpeciesRegistry.class, CatSpeciesRules.class, DogSpeciesRules.class, OtherSpeciesRules.class, AnimalDatasetGenerator.class, AnimalCacheTest.RepositoryConfig.class})
+@EnableConfigurationProperties({AnimalCacheProperties.class, DatasetProperties.class})
+@TestPropertySource(properties = "app.animal.cache.all-data-max-animals=5")
+class AnimalCacheTest {
+
+    @Autowired
+    private AdvanceService advanceService;
+
+    @Autowired
+    private AnimalService animalService;
+
+    @Autowired
+    private AnimalJsonCache jsonCache;
+
+    @Autowired
+    private AnimalDatasetGenerator datasetGenerator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AnimalCollectionVersion collectionVersion;
+
+    // A @MockitoBean isn't proxied, so the @Cacheable of the repository would be skipped
+    private final AnimalRepository repository = RepositoryConfig.REPOSITORY;
+
+    @MockitoBean
+    private IAnimalMapper mapper;
+
+    @MockitoBean
+    private AdvanceUtil util;
+
+    @MockitoBean
+    private AnimalColumnarSnapshot columnarSnapshot;
+
+    @MockitoBean
+    private AnimalTypeIndex typeIndex;
+
+    @Configuration
+    static class RepositoryConfig {
+
+        static final AnimalRepository REPOSITORY = mock(AnimalRepository.class);
+
+        @Bean
+        AnimalRepository animalRepository() {
+            return REPOSITORY;
+        }
+
+    }
+
+    @BeforeEach
+    void setUp() {
+        reset(repository);
+        cacheManager.getCache(CacheConfig.ALL_DATA).clear();
+        cacheManager.getCache(CacheConfig.ANIMAL).clear();
+        cacheManager.getCache(CacheConfig.ALL_DATA_JSON).clear();
+        cacheManager.getCache(CacheConfig.STATS).clear();
+        when(repository.findAllModels()).thenReturn(MockAnimal.generateAnimals());
+    }
+
+    @Test
+    @DisplayName("AllData is read once until an animal changes")
+    void allData_evictedOnWrite() {
+        advanceService.getDataNoPaginationButWithCache();
+        advanceService.getDataNoPaginationButWithCache();
+        verify(repository, times(1)).findAllModels();
+
+        when(repository.patchById(anyInt(), any(), anyInt(), any(), any())).thenReturn(Optional.of(MockAnimal.generateAnimal(AnimalTypeEnum.DOG)));
+        animalService.patchAnimal(1, new AnimalPatch("Rex", null, null, null, null), null);
+        advanceService.getDataNoPaginationButWithCache();
+        verify(repository, times(2)).findAllModels();
+
+        animalService.deleteAnimal(1, null);
+        advanceService.getDataNoPaginationButWithCache();
+        verify(repository, times(3)).findAllModels();
+    }
+
+    @Test
+    @DisplayName("AllDataJson serializes once until an animal changes")
+    void allDataJson_evictedOnChange() {
+        var json = jsonCache.getDataNoPagination();
+        assertSame(json, jsonCache.getDataNoPagination());
+        assertEquals('[', json.getJson()[0]);
+
+        when(repository.deleteByFilter(any())).thenReturn(2);
+        animalService.deleteAnimals(new AnimalFilter(List.of(1), null, null, null, null));
+
+        assertNotSame(json, jsonCache.getDataNoPagination());
+        verify(repository, times(2)).findAllModels();
+    }
+
+    @Test
+    @DisplayName("Stats are counted once per collection version")
+    void stats_cachedByVersion() {
+        when(repository.countByTypeDietGenderAndAge()).thenReturn(List.of());
+        var stats = animalService.getStats();
+        assertSame(stats, animalService.getStats());
+        verify(repository, times(1)).countByTypeDietGenderAndAge();
+
+        collectionVersion.onAnimalChanged(AnimalChangedEvent.bulk());
+
+        assertNotSame(stats, animalService.getStats());
+        verify(repository, times(2)).countByTypeDietGenderAndAge();
+    }
+
+    @Test
+    @DisplayName("AllData doesn't hold a list bigger than the limit")
+    void allData_boundedByAnimals() {
+        var animals = MockAnimal.generateAnimals();
+        when(repository.findAllModels()).thenReturn(List.of(animals.get(0), animals.get(1), animals.get(2), animals.get(0), animals.get(1), animals.get(2)));
+
+        var nativeCache = (Cache<?, ?>) cacheManager.getCache(CacheConfig.ALL_DATA).getNativeCache();
+        advanceService.getDataNoPaginationButWithCache();
+        // The size eviction is asynchronous
+        nativeCache.cleanUp();
+        advanceService.getDataNoPaginationButWithCache();
+
+        assertEquals(2, nativeCache.stats().missCount());
+        verify(repository, times(2)).findAllModels();
+    }
+
+    @Test
+    @DisplayName("animal is read through once per id, a missing id included")
+    void animal_readThrough() {
+        var animal = MockAnimal.generateAnimal(AnimalTypeEnum.DOG);
+        when(repository.findModelById(1)).thenReturn(Optional.of(animal));
+        when(repository.findModelById(2)).thenReturn(Optional.empty());
+
+        assertSame(animal, animalService.getAnimal(1).orElseThrow());
+        assertSame(animal, animalService.getAnimal(1).orElseThrow());
+        assertEquals(Optional.empty(), animalService.getAnimal(2));
+        assertEquals(Optional.empty(), animalService.getAnimal(2));
+
+        verify(repository, times(1)).findModelById(1);
+        verify(repository, times(1)).findModelById(2);
+    }
+
+    @Test
+    @DisplayName("animal is updated on save, update and patch, evicted on delete")
+    void animal_writeThrough() {
+        when(repository.findModelById(anyInt())).thenReturn(Optional.empty());
+        assertEquals(Optional.empty(), animalService.getAnimal(1));
+
+        var entity = MockAnimal.generateEntity();
+        var saved = MockAnimal.generateAnimal(AnimalTypeEnum.CAT);
+        saved.setId(1);
+        when(mapper.toEntity(any())).thenReturn(entity);
+        when(repository.save(any())).thenReturn(entity);
+        when(mapper.toModel(entity)).thenReturn(saved);
+        animalService.saveAnimal(MockAnimal.generateAnimal(AnimalTypeEnum.CAT));
+        assertSame(saved, animalService.getAnimal(1).orElseThrow());
+
+        var updated = MockAnimal.generateAnimal(AnimalTypeEnum.DOG);
+        when(repository.findById(1)).thenReturn(Optional.of(entity));
+        when(mapper.toModel(entity)).thenReturn(updated);
+        animalService.updateAnimal(MockAnimal.generateAnimal(AnimalTypeEnum.DOG), 1, null);
+        assertSame(updated, animalService.getAnimal(1).orElseThrow());
+
+        var patched = MockAnimal.generateAnimal(AnimalTypeEnum.DOG);
+        when(repository.patchById(eq(1), any(), anyInt(), any(), any())).thenReturn(Optional.of(patched));
+        animalService.patchAnimal(1, new AnimalPatch("Rex", null, null, null, null), null);
+        assertSame(patched, animalService.getAnimal(1).orElseThrow());
+
+        animalService.deleteAnimal(1, null);
+        assertEquals(Optional.empty(), animalService.getAnimal(1));
+        verify(repository, times(2)).findModelById(1);
+    }
+
+    @Test
+    @DisplayName("animal is evicted by a generated dataset, a null sink meaning the database")
+    void animal_evictedByDataset() {
+        var animal = MockAnimal.generateAnimal(AnimalTypeEnum.DOG);
+        when(repository.findModelById(1)).thenReturn(Optional.of(animal));
+        when(repository.saveAllInBatches(any())).thenReturn(1);
+
+        animalService.getAnimal(1);
+        datasetGenerator.generate(DatasetSpec.builder().rows(1).sink(null).build());
+        animalService.getAnimal(1);
+
+        verify(repository, times(2)).findModelById(1);
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGroupByEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalAnalytics;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalSearch;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.CAT;
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.DOG;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalColumnarSnapshotTest {
+
+    private static final SpeciesRegistry SPECIES = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    private static final String[] NAMES = {"Bob", "Bolt", "Coco", "Max", "Maxi", "Luna"};
+
+    @Mock
+    private AnimalRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnimalColumnarSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        snapshot = new AnimalColumnarSnapshot(repository, meterRegistry, true);
+    }
+
+    @Test
+    @DisplayName("Columnar snapshot - empty until loaded, then loaded in chunks by id")
+    void rebuild_inChunks() {
+        assertTrue(snapshot.analyze(new AnimalSearch(), AnimalGroupByEnum.NONE).isEmpty());
+        assertTrue(Double.isNaN(meterRegistry.get("animal.columnar.rows").gauge().value()));
+
+        var first = animals(AnimalColumnarSnapshot.LOAD_CHUNK_SIZE, 1);
+        int lastId = first.get(first.size() - 1).getId();
+        when(repository.findModelsAfter(eq(Integer.MIN_VALUE), any(Limit.class))).thenReturn(first);
+        when(repository.findModelsAfter(eq(lastId), any(Limit.class))).thenReturn(List.of(animal(lastId + 1, CAT, "Tom")));
+        snapshot.onApplicationReady();
+
+        var analytics = snapshot.analyze(new AnimalSearch(), AnimalGroupByEnum.NONE).orElseThrow();
+        assertEquals(AnimalColumnarSnapshot.LOAD_CHUNK_SIZE + 1, analytics.getTotal());
+        assertEquals(AnimalColumnarSnapshot.LOAD_CHUNK_SIZE + 1, meterRegistry.get("animal.columnar.rows").gauge().value());
+        assertTrue(meterRegistry.get("animal.columnar.size").gauge().value() > 0);
+        assertTrue(meterRegistry.get("animal.columnar.staleness").gauge().value() >= 0);
+        verify(repository, times(2)).findModelsAfter(anyInt(), any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("Columnar snapshot - disabled never loads")
+    void disabled() {
+        snapshot = new AnimalColumnarSnapshot(repository, new SimpleMeterRegistry(), false);
+
+        snapshot.onApplicationReady();
+        snapshot.onAnimalChanged(AnimalChangedEvent.bulk());
+
+        assertTrue(snapshot.analyze(new AnimalSearch(), AnimalGroupByEnum.NONE).isEmpty());
+        verifyNoInteractions(repository);
+    }
+
+    @ParameterizedTest
+    @EnumSource(AnimalGroupByEnum.class)
+    @DisplayName("Columnar snapshot - same aggregates as a scan of the animals")
+    void analyze_sameAsStream(AnimalGroupByEnum groupBy) {
+        // More than one chunk, so the partial aggregates are merged
+        var animals = animals(AnimalColumns.CHUNK_ROWS + 5_000, 7);
+        animals.get(3).setDiet(null);
+        animals.get(4).setGender(null);
+        load(animals);
+
+        List<AnimalSearch> searches = List.of(
+                new AnimalSearch(),
+                AnimalSearch.builder().type(DOG).minAge(3).maxAge(9).build(),
+                AnimalSearch.builder().diet(AnimalDietEnum.CARNIVOROUS).gender(AnimalGenderEnum.FEMALE).name("Bo").build(),
+                AnimalSearch.builder().minAgeInHumanYears(20).maxAgeInHumanYears(50)
+                        .bornFrom(LocalDate.of(2012, 1, 1)).bornTo(LocalDate.of(2018, 6, 30)).build(),
+                AnimalSearch.builder().name("Nobody").build());
+        for (AnimalSearch search : searches) {
+            var analytics = snapshot.analyze(search, groupBy).orElseThrow();
+
+            assertEquals(animals.size(), analytics.getScanned());
+            assertEquals(expected(animals, search, groupBy), new TreeMap<>(analytics.getGroups()), search::toString);
+            assertEquals(analytics.getGroups().values().stream().mapToLong(AnimalAnalytics.Group::getCount).sum(), analytics.getTotal());
+        }
+    }
+
+    @Test
+    @DisplayName("Columnar snapshot - follows saves, updates and deletes")
+    void onAnimalChanged() {
+        load(List.of(animal(10, CAT, "Tom"), animal(20, DOG, "Rex")));
+
+        snapshot.onAnimalChanged(AnimalChangedEvent.saved(List.of(animal(30, CAT, "Kitty"))));
+        // An id below the last one, from an interleaved sequence range
+        snapshot.onAnimalChanged(AnimalChangedEvent.saved(List.of(animal(15, DOG, "Bolt"))));
+        // Type changed from CAT to DOG
+        snapshot.onAnimalChanged(AnimalChangedEvent.updated(animal(10, DOG, "Tom")));
+        snapshot.onAnimalChanged(AnimalChangedEvent.deleted(20));
+        snapshot.onAnimalChanged(AnimalChangedEvent.deleted(99));
+
+        assertEquals(Map.of("CAT", 1L, "DOG", 2L), counts(new AnimalSearch(), AnimalGroupByEnum.TYPE));
+        assertEquals(Map.of("Bolt", 1L, "Kitty", 1L, "Tom", 1L), counts(new AnimalSearch(), AnimalGroupByEnum.NAME));
+
+        // Only the id is known, the new state is read from the database
+        when(repository.findModelsByIds(List.of(30))).thenReturn(List.of(animal(30, DOG, "Kitty")));
+        snapshot.onAnimalChanged(AnimalChangedEvent.updated(30));
+        // Deleted before the update was read back
+        when(repository.findModelsByIds(List.of(15))).thenReturn(List.of());
+        snapshot.onAnimalChanged(AnimalChangedEvent.updated(15));
+
+        assertEquals(Map.of("DOG", 2L), counts(new AnimalSearch(), AnimalGroupByEnum.TYPE));
+        assertEquals(2.0, meterRegistry.get("animal.columnar.rows").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Columnar snapshot - deleted rows are compacted and can come back")
+    void onAnimalChanged_compacts() {
+        load(animals(100, 1));
+
+        for (int id = 1; id <= 60; id++) {
+            snapshot.onAnimalChanged(AnimalChangedEvent.deleted(id));
+        }
+        snapshot.onAnimalChanged(AnimalChangedEvent.saved(List.of(animal(5, CAT, "Tom"))));
+
+        var analytics = snapshot.analyze(new AnimalSearch(), AnimalGroupByEnum.NONE).orElseThrow();
+        assertEquals(41, analytics.getTotal());
+        assertEquals(41, analytics.getScanned());
+        assertEquals(Map.of("Tom", 1L), counts(AnimalSearch.builder().name("Tom").build(), AnimalGroupByEnum.NAME));
+    }
+
+    @Test
+    @DisplayName("Columnar snapshot - a bulk change loads the table again")
+    void onAnimalChanged_bulk() {
+        load(List.of(animal(1, CAT, "Tom")));
+        when(repository.findModelsAfter(eq(Integer.MIN_VALUE), any(Limit.class))).thenReturn(List.of(animal(1, CAT, "Tom"), animal(2, DOG, "Rex")));
+
+        snapshot.onAnimalChanged(AnimalChangedEvent.bulk());
+
+        assertEquals(Map.of("all", 2L), counts(new AnimalSearch(), AnimalGroupByEnum.NONE));
+    }
+
+    private void load(List<Animal> animals) {
+        when(repository.findModelsAfter(eq(Integer.MIN_VALUE), any(Limit.class))).thenReturn(animals);
+        snapshot.rebuild();
+    }
+
+    private Map<String, Long> counts(AnimalSearch search, AnimalGroupByEnum groupBy) {
+        return snapshot.analyze(search, groupBy).orElseThrow().getGroups().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getCount()));
+    }
+
+    private static Map<String, AnimalAnalytics.Group> expected(List<Animal> animals, AnimalSearch search, AnimalGroupByEnum groupBy) {
+        Predicate<Animal> matches = animal -> (search.getType() == null || search.getType() == animal.getType())
+                && (search.getDiet() == null || search.getDiet() == animal.getDiet())
+                && (search.getGender() == null || search.getGender() == animal.getGender())
+                && (search.getMinAge() == null || animal.getAge() >= search.getMinAge())
+                && (search.getMaxAge() == null || animal.getAge() <= search.getMaxAge())
+                && (search.getMinAgeInHumanYears() == null || animal.getAgeInHumanYears() >= search.getMinAgeInHumanYears())
+                && (search.getMaxAgeInHumanYears() == null || animal.getAgeInHumanYears() <= search.getMaxAgeInHumanYears())
+                && (search.getBornFrom() == null || animal.getBirthday() != null && !animal.getBirthday().isBefore(search.getBornFrom()))
+                && (search.getBornTo() == null || animal.getBirthday() != null && !animal.getBirthday().isAfter(search.getBornTo()))
+                && (search.getName() == null || animal.getName().startsWith(search.getName()));
+        Function<Animal, String> key = animal -> switch (groupBy) {
+            case NONE -> "all";
+            case TYPE -> String.valueOf(animal.getType());
+            case DIET -> String.valueOf(animal.getDiet());
+            case GENDER -> String.valueOf(animal.getGender());
+            case AGE -> String.valueOf(animal.getAge());
+            case BIRTH_YEAR -> animal.getBirthday() == null ? "null" : String.valueOf(animal.getBirthday().getYear());
+            case NAME -> animal.getName();
+        };
+        return animals.stream().filter(matches).collect(Collectors.groupingBy(key, TreeMap::new, Collectors.collectingAndThen(Collectors.toList(),
+                group -> new AnimalAnalytics.Group(group.size(),
+                        group.stream().mapToInt(Animal::getAge).min().orElseThrow(),
+                        group.stream().mapToInt(Animal::getAge).max().orElseThrow(),
+                        group.stream().mapToInt(Animal::getAge).average().orElseThrow(),
+                        group.stream().mapToInt(Animal::getAgeInHumanYears).average().orElseThrow()))));
+    }
+
+    private static List<Animal> animals(int count, long seed) {
+        var random = new Random(seed);
+        var animals = new ArrayList<Animal>(count);
+        for (int i = 0; i < count; i++) {
+            var type = AnimalTypeEnum.values()[random.nextInt(AnimalTypeEnum.values().length)];
+            var birthday = LocalDate.of(2005, 1, 1).plusDays(random.nextInt(7_300));
+            int age = random.nextInt(20);
+            animals.add(new Animal(i + 1, NAMES[random.nextInt(NAMES.length)], age, SPECIES.get(type).humanYears(age), birthday, type,
+                    AnimalDietEnum.values()[random.nextInt(AnimalDietEnum.values().length)],
+                    AnimalGenderEnum.values()[random.nextInt(AnimalGenderEnum.values().length)], 0));
+        }
+        return animals;
+    }
+
+    private static Animal animal(int id, AnimalTypeEnum type, String name) {
+        return new Animal(id, name, 2, SPECIES.get(type).humanYears(2), LocalDate.of(2020, 1, 1), type,
+                AnimalDietEnum.OMNIVOROUS, AnimalGenderEnum.UNKNOWN, 0);
+    }
+
+}
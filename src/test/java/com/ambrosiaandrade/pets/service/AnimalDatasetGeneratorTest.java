@@ -0,0 +1,227 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.DatasetProperties;
+import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.enums.DatasetSinkEnum;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
+import com.ambrosiaandrade.pets.models.AnimalAges;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.DatasetSpec;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalDatasetGeneratorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 5, 10);
+
+    @Mock
+    private AnimalRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    private Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DatasetProperties properties = new DatasetProperties();
+    private final SpeciesRegistry speciesRegistry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+    private final List<AnimalEntity> inserted = new ArrayList<>();
+    private final List<Integer> chunks = new ArrayList<>();
+    private AnimalDatasetGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        properties.setChunkSize(4);
+        properties.setMaxRows(50_000);
+        properties.setDirectory(directory);
+        generator = new AnimalDatasetGenerator(repository, speciesRegistry, eventPublisher, meterRegistry, new ObjectMapper(),
+                properties, Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+    }
+
+    private void recordInserts() {
+        when(repository.saveAllInBatches(anyList())).thenAnswer(invocation -> {
+            List<AnimalEntity> chunk = invocation.getArgument(0);
+            chunks.add(chunk.size());
+            inserted.addAll(chunk);
+            return chunk.size();
+        });
+    }
+
+    private void assertBulkEvent() {
+        var event = ArgumentCaptor.forClass(AnimalChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(AnimalChangeEnum.BULK, event.getValue().getChange());
+    }
+
+    @Test
+    @DisplayName("Database - exactly the rows asked, in chunks, then one bulk event")
+    void database_chunks() {
+        recordInserts();
+
+        var result = generator.generate(DatasetSpec.builder().rows(10).seed(1L).build());
+
+        assertEquals(List.of(4, 4, 2), chunks);
+        assertEquals(10, result.getRows());
+        assertEquals(DatasetSinkEnum.DATABASE, result.getSink());
+        assertEquals(1, result.getSeed());
+        assertEquals(TODAY, result.getToday());
+        assertNull(result.getFile());
+        assertTrue(result.getRowsPerSecond() > 0);
+        assertBulkEvent();
+        assertEquals(1, meterRegistry.get(AnimalDatasetGenerator.METRIC).tag("sink", "DATABASE").timer().count());
+        assertEquals(10, meterRegistry.get(AnimalDatasetGenerator.METRIC + ".rows").counter().count());
+    }
+
+    @Test
+    @DisplayName("Database - the weights, ages and species defaults hold over many rows")
+    void database_distributions() {
+        properties.setChunkSize(5_000);
+        recordInserts();
+        var spec = DatasetSpec.builder().rows(40_000).seed(7L).minAge(2).maxAge(4)
+                .types(Map.of(AnimalTypeEnum.CAT, 3, AnimalTypeEnum.DOG, 1, AnimalTypeEnum.OTHER, 0))
+                .genders(Map.of(AnimalGenderEnum.FEMALE, 1))
+                .names(Map.of("Luna", 1, "Thor", 1))
+                .build();
+
+        generator.generate(spec);
+
+        assertEquals(40_000, inserted.size());
+        long cats = inserted.stream().filter(animal -> animal.getType() == AnimalTypeEnum.CAT).count();
+        assertEquals(0.75, cats / 40_000.0, 0.01);
+        for (AnimalEntity animal : inserted) {
+            assertNotEquals(AnimalTypeEnum.OTHER, animal.getType());
+            assertEquals(AnimalGenderEnum.FEMALE, animal.getGender());
+            assertTrue(animal.getName().equals("Luna") || animal.getName().equals("Thor"));
+            assertEquals(AnimalAges.years(animal.getBirthday(), TODAY), animal.getAge());
+            assertTrue(animal.getAge() >= 2 && animal.getAge() <= 4, animal.getBirthday()::toString);
+            assertEquals(speciesRegistry.get(animal.getType()).humanYears(animal.getAge()), animal.getAgeInHumanYears());
+            assertEquals(animal.getType() == AnimalTypeEnum.CAT ? AnimalDietEnum.CARNIVOROUS : AnimalDietEnum.OMNIVOROUS, animal.getDiet());
+        }
+        assertEquals(2, inserted.stream().mapToInt(AnimalEntity::getAge).min().orElseThrow());
+        assertEquals(4, inserted.stream().mapToInt(AnimalEntity::getAge).max().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Database - a failed chunk is a 500, the chunks before it still publish the bulk event")
+    void database_error() {
+        when(repository.saveAllInBatches(anyList())).thenReturn(4).thenThrow(new DataAccessResourceFailureException("DB error"));
+
+        var e = assertThrows(BaseException.class, () -> generator.generate(DatasetSpec.builder().rows(10).build()));
+
+        assertEquals(500, e.getStatusCode());
+        verify(repository, times(2)).saveAllInBatches(anyList());
+        assertBulkEvent();
+    }
+
+    @Test
+    @DisplayName("NDJSON - the same seed gives the same file, whatever the order of the weights")
+    void ndjson_reproducible() throws Exception {
+        var names = new LinkedHashMap<String, Integer>();
+        names.put("Mel", 2);
+        names.put("Bob", 1);
+        var reversed = new LinkedHashMap<String, Integer>();
+        reversed.put("Bob", 1);
+        reversed.put("Mel", 2);
+        var spec = DatasetSpec.builder().rows(500).sink(DatasetSinkEnum.NDJSON).seed(42L).names(names).build();
+
+        var first = Path.of(generator.generate(spec).getFile());
+        byte[] firstBytes = Files.readAllBytes(first);
+        spec.setNames(reversed);
+        byte[] again = Files.readAllBytes(Path.of(generator.generate(spec).getFile()));
+        spec.setSeed(43L);
+        byte[] otherSeed = Files.readAllBytes(Path.of(generator.generate(spec).getFile()));
+
+        assertEquals(directory.resolve("animals-42-500.ndjson"), first);
+        assertArrayEquals(firstBytes, again);
+        assertFalse(Arrays.equals(firstBytes, otherSeed));
+        var lines = Files.readAllLines(first);
+        assertEquals(500, lines.size());
+        var animal = new ObjectMapper().readTree(lines.get(0));
+        assertTrue(animal.get("name").asText().equals("Mel") || animal.get("name").asText().equals("Bob"));
+        assertEquals(AnimalAges.years(LocalDate.parse(animal.get("birthday").asText()), TODAY), animal.get("age").asInt());
+        verifyNoInteractions(repository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("CSV - header of the export and one line per animal")
+    void csv() throws Exception {
+        var spec = DatasetSpec.builder().rows(20).sink(DatasetSinkEnum.CSV).seed(5L).today(LocalDate.of(2020, 1, 1))
+                .diets(Map.of(AnimalDietEnum.HERBICOROUS, 1)).build();
+
+        var result = generator.generate(spec);
+
+        assertEquals(LocalDate.of(2020, 1, 1), result.getToday());
+        try (Reader reader = Files.newBufferedReader(Path.of(result.getFile())); var csv = new CSVReader(reader)) {
+            var lines = csv.readAll();
+            assertEquals(21, lines.size());
+            assertArrayEquals(new String[]{"name", "age", "age_in_human_years", "birthday", "type", "diet", "gender"}, lines.get(0));
+            for (String[] line : lines.subList(1, 21)) {
+                assertEquals("HERBICOROUS", line[5]);
+                assertEquals(AnimalAges.years(LocalDate.parse(line[3]), LocalDate.of(2020, 1, 1)), Integer.parseInt(line[1]));
+            }
+        }
+    }
+
+    static Stream<DatasetSpec> invalidSpecs() {
+        return Stream.of(
+                DatasetSpec.builder().rows(0).build(),
+                DatasetSpec.builder().rows(50_001).build(),
+                DatasetSpec.builder().rows(1).minAge(5).maxAge(4).build(),
+                DatasetSpec.builder().rows(1).minAge(-1).build(),
+                DatasetSpec.builder().rows(1).maxAge(101).build(),
+                DatasetSpec.builder().rows(1).types(Map.of(AnimalTypeEnum.CAT, -1)).build(),
+                DatasetSpec.builder().rows(1).genders(Map.of(AnimalGenderEnum.MALE, 0)).build(),
+                DatasetSpec.builder().rows(1).diets(Map.of()).build(),
+                DatasetSpec.builder().rows(1).names(Map.of(" ", 1)).build(),
+                DatasetSpec.builder().rows(1).today(LocalDate.of(2020, 1, 1)).build()
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidSpecs")
+    @DisplayName("Invalid specs are a 400 before anything is written")
+    void invalidSpec(DatasetSpec spec) {
+        var e = assertThrows(BaseException.class, () -> generator.generate(spec));
+
+        assertEquals(400, e.getStatusCode());
+        verifyNoInteractions(repository, eventPublisher);
+    }
+
+}
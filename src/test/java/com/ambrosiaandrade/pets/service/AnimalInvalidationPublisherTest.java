@@ -0,0 +1,82 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.KafkaProperties;
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
+import com.ambrosiaandrade.pets.factory.MockAnimal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalInvalidation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.DOG;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalInvalidationPublisherTest {
+
+    private static final String TOPIC = "animal-invalidation";
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KafkaProperties properties;
+    private AnimalInvalidationPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KafkaProperties();
+        properties.setInvalidationTopic(TOPIC);
+        publisher = new AnimalInvalidationPublisher(kafkaTemplate, properties, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Invalidation - sends the id and version keyed by the id")
+    void onAnimalChanged_updated() throws Exception {
+        var animal = MockAnimal.generateAnimal(DOG);
+        animal.setId(7);
+        animal.setVersion(3);
+        when(kafkaTemplate.send(eq(TOPIC), any(), anyString())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("down")));
+
+        publisher.onAnimalChanged(AnimalChangedEvent.updated(animal));
+
+        var message = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(eq(TOPIC), eq("7"), message.capture());
+        var invalidation = objectMapper.readValue(message.getValue(), AnimalInvalidation.class);
+        assertEquals(properties.getInstanceId(), invalidation.getOrigin());
+        assertEquals(AnimalChangeEnum.UPDATED, invalidation.getChange());
+        assertEquals(List.of(7), invalidation.getIds());
+        assertEquals(List.of(3L), invalidation.getVersions());
+    }
+
+    @Test
+    @DisplayName("Invalidation - bulk changes have no ids nor key")
+    void onAnimalChanged_bulk() {
+        when(kafkaTemplate.send(eq(TOPIC), isNull(), anyString())).thenReturn(new CompletableFuture<>());
+
+        publisher.onAnimalChanged(AnimalChangedEvent.bulk());
+
+        verify(kafkaTemplate).send(TOPIC, null, "{\"origin\":\"" + properties.getInstanceId() + "\",\"change\":\"BULK\"}");
+    }
+
+    @Test
+    @DisplayName("Invalidation - remote changes aren't sent back")
+    void onAnimalChanged_remote() {
+        publisher.onAnimalChanged(AnimalChangedEvent.remote(AnimalChangeEnum.DELETED, List.of(1)));
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+}
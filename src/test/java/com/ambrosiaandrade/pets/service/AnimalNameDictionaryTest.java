@@ -0,0 +1,33 @@
+package com.ambrosiaandrade.pets.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnimalNameDictionaryTest {
+
+    @Test
+    @DisplayName("Equal names share the first instance seen")
+    void intern_sharesInstances() {
+        String first = new String("Shadow".toCharArray());
+        String second = new String("Shadow".toCharArray());
+
+        String shared = AnimalNameDictionary.intern(first);
+
+        assertSame(shared, AnimalNameDictionary.intern(second));
+        assertEquals("Shadow", shared);
+        assertTrue(AnimalNameDictionary.size() >= 1);
+    }
+
+    @Test
+    @DisplayName("Null and long names are returned as they are")
+    void intern_skipped() {
+        String name = "x".repeat(AnimalNameDictionary.MAX_LENGTH + 1);
+
+        assertNull(AnimalNameDictionary.intern(null));
+        assertSame(name, AnimalNameDictionary.intern(name));
+        assertNotSame(AnimalNameDictionary.intern(new String(name.toCharArray())), name);
+    }
+
+}
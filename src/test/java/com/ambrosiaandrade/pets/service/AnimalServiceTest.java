@@ -1,24 +1,49 @@
 package com.ambrosiaandrade.pets.service;
 
+import com.ambrosiaandrade.pets.config.CacheConfig;
 import com.ambrosiaandrade.pets.entities.AnimalEntity;
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalGenderEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
 import com.ambrosiaandrade.pets.exceptions.BaseException;
+import com.ambrosiaandrade.pets.enums.AnimalChangeEnum;
 import com.ambrosiaandrade.pets.factory.MockAnimal;
 import com.ambrosiaandrade.pets.interfaces.IAnimalMapper;
 import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalBulkUpdate;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.models.AnimalCount;
+import com.ambrosiaandrade.pets.models.AnimalFilter;
+import com.ambrosiaandrade.pets.models.AnimalPatch;
+import com.ambrosiaandrade.pets.models.AnimalStats;
+import com.ambrosiaandrade.pets.models.BulkResult;
 import com.ambrosiaandrade.pets.models.Cat;
 import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.CAT;
@@ -32,6 +57,15 @@ class AnimalServiceTest {
     @Mock
     private AnimalRepository animalRepository;
     private IAnimalMapper mapper;
+    private final SpeciesRegistry speciesRegistry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AnimalTypeIndex typeIndex;
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager();
 
     @InjectMocks
     private AnimalService animalService;
@@ -40,7 +74,17 @@ class AnimalServiceTest {
     void setUp() {
         mapper = Mappers.getMapper(IAnimalMapper.class);
         MockitoAnnotations.openMocks(this);
-        animalService = new AnimalService(animalRepository, mapper);
+        animalService = new AnimalService(animalRepository, mapper, eventPublisher, typeIndex, new AgeCalculator(Clock.systemDefaultZone()),
+                speciesRegistry, cacheManager);
+    }
+
+    /**
+     * The entity the service writes for a model, human years converted by the species rules.
+     */
+    private AnimalEntity toSavedEntity(Animal animal) {
+        AnimalEntity entity = mapper.toEntity(animal);
+        entity.setAgeInHumanYears(speciesRegistry.get(animal.getType()).humanYears(animal.getAge()));
+        return entity;
     }
 
     @Nested
@@ -52,7 +96,7 @@ class AnimalServiceTest {
             var animals = MockAnimal.generateAnimals();
 
             for (Animal animal : animals) {
-                AnimalEntity entity = mapper.toEntity(animal);
+                AnimalEntity entity = toSavedEntity(animal);
                 entity.setId(1);
 
                 when(animalRepository.save(entity)).thenReturn(entity);
@@ -66,13 +110,18 @@ class AnimalServiceTest {
                 verify(animalRepository).save(entity);
             }
 
+            var event = ArgumentCaptor.forClass(AnimalChangedEvent.class);
+            verify(eventPublisher, times(animals.size())).publishEvent(event.capture());
+            assertEquals(AnimalChangeEnum.SAVED, event.getValue().getChange());
+            assertEquals(List.of(1), event.getValue().getIds());
+
         }
 
         @Test
         @DisplayName("Save animal - error")
         void saveAnimal_dataAccessException() {
             Animal animal = MockAnimal.generateAnimal(DOG);
-            AnimalEntity entity = mapper.toEntity(animal);
+            AnimalEntity entity = toSavedEntity(animal);
 
             when(animalRepository.save(entity)).thenThrow(new DataAccessException("DB error") {
             });
@@ -82,6 +131,203 @@ class AnimalServiceTest {
             assertThrows(BaseException.class, executable);
         }
 
+        @Test
+        @DisplayName("Save animal - ages and diet from the species rules")
+        void saveAnimal_speciesRules() {
+            Animal animal = MockAnimal.generateAnimal(CAT);
+            animal.setBirthday(LocalDate.now().minusYears(3).minusDays(1));
+            animal.setDiet(AnimalDietEnum.HERBICOROUS);
+            animal.setAge(0);
+            when(animalRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Animal result = animalService.saveAnimal(animal);
+
+            assertEquals(3, result.getAge());
+            assertEquals(28, result.getAgeInHumanYears());
+            assertEquals(AnimalDietEnum.CARNIVOROUS, result.getDiet());
+        }
+
+        @Test
+        @DisplayName("Save animal - birthday in the future")
+        void saveAnimal_futureBirthday() {
+            Animal animal = MockAnimal.generateAnimal(DOG);
+            animal.setBirthday(LocalDate.now().plusDays(1));
+
+            BaseException exception = assertThrows(BaseException.class, () -> animalService.saveAnimal(animal));
+
+            assertEquals(400, exception.getStatusCode());
+            verify(animalRepository, never()).save(any());
+        }
+
+    }
+
+    @Nested
+    class SaveAnimals {
+
+        private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        @BeforeEach
+        void setUp() throws NoSuchFieldException, IllegalAccessException {
+            Field field = AnimalService.class.getDeclaredField("bulkChunkSize");
+            field.setAccessible(true);
+            field.set(animalService, 2);
+
+            lenient().doAnswer(invocation -> {
+                List<AnimalEntity> entities = invocation.getArgument(0);
+                entities.forEach(entity -> entity.setId(100 + entity.getName().length()));
+                return entities.size();
+            }).when(animalRepository).saveAllInBatches(anyList());
+        }
+
+        @Test
+        @DisplayName("Save animals - json array in chunks")
+        void saveAnimals_jsonArray() throws IOException {
+            String json = """
+                    [
+                        {"name": "Tom", "birthday": "2020-01-01", "type": "CAT"},
+                        {"name": "Rex", "birthday": "2019-01-01", "type": "DOG"},
+                        {"name": "Nemo", "birthday": "2021-01-01", "type": "OTHER"}
+                    ]
+                    """;
+
+            BulkResult result = animalService.saveAnimals(read(json));
+
+            assertEquals(3, result.getReceived());
+            assertEquals(3, result.getSaved());
+            assertEquals(0, result.getFailed());
+            assertEquals(List.of(103, 103, 104), result.getIds());
+            verify(animalRepository, times(2)).saveAllInBatches(anyList());
+        }
+
+        @Test
+        @DisplayName("Save animals - ndjson with rejected items")
+        void saveAnimals_ndjsonWithErrors() throws IOException {
+            String ndjson = """
+                    {"name": "Tom", "birthday": "2020-01-01", "type": "CAT"}
+                    {"birthday": "2020-01-01", "type": "CAT"}
+                    {"name": "Rex", "birthday": "2019-01-01", "type": "FISH"}
+                    {"name": "Nemo", "birthday": "2021-01-01", "type": "OTHER"}
+                    """;
+
+            BulkResult result = animalService.saveAnimals(read(ndjson));
+
+            assertEquals(4, result.getReceived());
+            assertEquals(2, result.getSaved());
+            assertEquals(2, result.getFailed());
+            assertEquals(Arrays.asList(103, null, null, 104), result.getIds());
+            assertEquals("name is required", result.getErrors().get(0).getMessage());
+            assertEquals(2, result.getErrors().get(1).getIndex());
+        }
+
+        @Test
+        @DisplayName("Save animals - imported names share one instance")
+        void saveAnimals_sharedNames() throws IOException {
+            String ndjson = "{\"name\": \"Coco\", \"birthday\": \"2020-01-01\", \"type\": \"CAT\"}\n"
+                    + "{\"name\": \"Coco\", \"birthday\": \"2021-01-01\", \"type\": \"DOG\"}";
+            List<String> names = new ArrayList<>();
+            doAnswer(invocation -> {
+                List<AnimalEntity> entities = invocation.getArgument(0);
+                entities.forEach(entity -> names.add(entity.getName()));
+                return entities.size();
+            }).when(animalRepository).saveAllInBatches(anyList());
+
+            animalService.saveAnimals(read(ndjson));
+
+            assertEquals(2, names.size());
+            assertSame(names.get(0), names.get(1));
+        }
+
+        @Test
+        @DisplayName("Save animals - birthday in the future is rejected")
+        void saveAnimals_futureBirthday() throws IOException {
+            String ndjson = "{\"name\": \"Tom\", \"birthday\": \"" + LocalDate.now().plusYears(1) + "\", \"type\": \"CAT\"}\n"
+                    + "{\"name\": \"Nemo\", \"birthday\": \"2021-01-01\", \"type\": \"OTHER\"}";
+
+            BulkResult result = animalService.saveAnimals(read(ndjson));
+
+            assertEquals(1, result.getSaved());
+            assertEquals(1, result.getFailed());
+            assertEquals(0, result.getErrors().get(0).getIndex());
+            assertEquals("birthday can't be in the future", result.getErrors().get(0).getMessage());
+            assertEquals(400, result.getErrors().get(0).getStatusCode());
+        }
+
+        @Test
+        @DisplayName("Save animals - chunk error")
+        void saveAnimals_dataAccessException() throws IOException {
+            doThrow(new DataAccessException("DB error") {
+            }).when(animalRepository).saveAllInBatches(anyList());
+
+            BulkResult result = animalService.saveAnimals(read("[{\"name\": \"Tom\", \"birthday\": \"2020-01-01\", \"type\": \"CAT\"}]"));
+
+            assertEquals(1, result.getReceived());
+            assertEquals(0, result.getSaved());
+            assertEquals(1, result.getFailed());
+            assertEquals("DB error", result.getErrors().get(0).getMessage());
+            assertEquals(500, result.getErrors().get(0).getStatusCode());
+        }
+
+        @Test
+        @DisplayName("Save animals - malformed payload")
+        void saveAnimals_malformed() throws IOException {
+            MappingIterator<Animal> animals = read("[{\"name\": \"Tom\", \"birthday\": ");
+
+            Executable executable = () -> animalService.saveAnimals(animals);
+
+            assertThrows(BaseException.class, executable);
+        }
+
+        @Test
+        @DisplayName("Save animal batch - one transaction, only the new ids are cached")
+        void saveAnimalBatch_success() {
+            cacheManager.getCache(CacheConfig.ANIMAL).put(7, "other animal");
+            Animal tom = new Animal(LocalDate.of(2020, 1, 1));
+            tom.setName("Tom");
+            tom.setType(AnimalTypeEnum.CAT);
+            Animal unborn = new Animal(LocalDate.of(2020, 1, 1));
+            unborn.setType(AnimalTypeEnum.CAT);
+            unborn.setName("Rex");
+            unborn.setBirthday(LocalDate.now().plusYears(1));
+
+            BulkResult result = animalService.saveAnimalBatch(List.of(tom, unborn));
+
+            assertEquals(2, result.getReceived());
+            assertEquals(1, result.getSaved());
+            assertEquals(Arrays.asList(103, null), result.getIds());
+            assertEquals(400, result.getErrors().get(0).getStatusCode());
+            verify(animalRepository, times(1)).saveAllInBatches(anyList());
+
+            var cache = cacheManager.getCache(CacheConfig.ANIMAL);
+            assertEquals("Tom", ((Animal) cache.get(103).get()).getName());
+            assertNotNull(cache.get(7));
+
+            ArgumentCaptor<AnimalChangedEvent> event = ArgumentCaptor.forClass(AnimalChangedEvent.class);
+            verify(eventPublisher).publishEvent(event.capture());
+            assertEquals(AnimalChangeEnum.SAVED, event.getValue().getChange());
+            assertEquals(List.of(103), event.getValue().getIds());
+        }
+
+        @Test
+        @DisplayName("Save animal batch - a database error fails the whole batch")
+        void saveAnimalBatch_dataAccessException() {
+            doThrow(new DataAccessException("DB error") {
+            }).when(animalRepository).saveAllInBatches(anyList());
+            Animal tom = new Animal(LocalDate.of(2020, 1, 1));
+            tom.setName("Tom");
+            tom.setType(AnimalTypeEnum.CAT);
+
+            BulkResult result = animalService.saveAnimalBatch(List.of(tom));
+
+            assertEquals(1, result.getFailed());
+            assertEquals(500, result.getErrors().get(0).getStatusCode());
+            assertNull(cacheManager.getCache(CacheConfig.ANIMAL).get(0));
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        private MappingIterator<Animal> read(String body) throws IOException {
+            return objectMapper.readerFor(Animal.class).readValues(body);
+        }
+
     }
 
     @Nested
@@ -90,96 +336,144 @@ class AnimalServiceTest {
         @Test
         @DisplayName("Get animal - success")
         void getAnimal_success() {
-            AnimalEntity entity = mapper.toEntity(MockAnimal.generateAnimal(DOG));
-
-            when(animalRepository.findById(anyInt())).thenReturn(Optional.of(entity));
+            when(animalRepository.findModelById(anyInt())).thenReturn(Optional.of(MockAnimal.generateAnimal(DOG)));
 
-            Animal result = animalService.getAnimal(1);
+            Optional<Animal> result = animalService.getAnimal(1);
 
-            assertNotNull(result);
-            verify(animalRepository).findById(any());
+            assertTrue(result.isPresent());
+            verify(animalRepository).findModelById(anyInt());
         }
 
         @Test
         @DisplayName("Get animal - not found")
         void getAnimal_notFound() {
-            when(animalRepository.findById(anyInt())).thenReturn(Optional.empty());
-
-            Executable executable = () -> animalService.getAnimal(1);
+            when(animalRepository.findModelById(anyInt())).thenReturn(Optional.empty());
 
-            assertThrows(BaseException.class, executable);
-            verify(animalRepository).findById(any());
+            assertEquals(Optional.empty(), animalService.getAnimal(1));
+            verify(animalRepository).findModelById(anyInt());
         }
 
         @Test
         @DisplayName("Get animal - error")
         void getAnimal_dataAccessException() {
-            when(animalRepository.findById(anyInt())).thenThrow(new DataAccessException("DB error") {
+            when(animalRepository.findModelById(anyInt())).thenThrow(new DataAccessException("DB error") {
             });
 
             Executable executable = () -> animalService.getAnimal(1);
 
             assertThrows(BaseException.class, executable);
-            verify(animalRepository).findById(any());
+            verify(animalRepository).findModelById(anyInt());
         }
 
         @Test
         @DisplayName("Get all animals - success")
         void getAnimals_success() {
 
-            List<AnimalEntity> list = new ArrayList<>();
-
-            var animals = MockAnimal.generateAnimals();
-            animals.forEach(animal -> {
-                list.add(mapper.toEntity(animal));
-            });
-
-            when(animalRepository.findAll()).thenReturn(list);
+            when(animalRepository.findAllModels()).thenReturn(MockAnimal.generateAnimals());
 
             List<Animal> result = animalService.getAnimals();
 
             assertNotNull(result);
 
-            verify(animalRepository).findAll();
+            verify(animalRepository).findAllModels();
         }
 
         @Test
         @DisplayName("Get all animals - error")
         void getAnimals_dataAccessException() {
-            when(animalRepository.findAll()).thenThrow(new DataAccessException("DB error") {
+            when(animalRepository.findAllModels()).thenThrow(new DataAccessException("DB error") {
             });
 
             Executable executable = () -> animalService.getAnimals();
 
             assertThrows(BaseException.class, executable);
-            verify(animalRepository).findAll();
+            verify(animalRepository).findAllModels();
+        }
+
+        @Test
+        @DisplayName("Get statistics - rolls the groups up")
+        void getStats_success() {
+            when(animalRepository.countByTypeDietGenderAndAge()).thenReturn(List.of(
+                    new AnimalCount(AnimalTypeEnum.CAT, AnimalDietEnum.CARNIVOROUS, AnimalGenderEnum.MALE, 2, 3),
+                    new AnimalCount(AnimalTypeEnum.CAT, AnimalDietEnum.OMNIVOROUS, AnimalGenderEnum.FEMALE, 2, 1),
+                    new AnimalCount(AnimalTypeEnum.DOG, null, AnimalGenderEnum.FEMALE, 5, 2)));
+
+            AnimalStats stats = animalService.getStats();
+
+            assertEquals(6, stats.getTotal());
+            assertEquals(Map.of(AnimalTypeEnum.CAT, 4L, AnimalTypeEnum.DOG, 2L, AnimalTypeEnum.OTHER, 0L), stats.getByType());
+            assertEquals(Map.of(AnimalDietEnum.CARNIVOROUS, 3L, AnimalDietEnum.OMNIVOROUS, 1L, AnimalDietEnum.HERBICOROUS, 0L), stats.getByDiet());
+            assertEquals(Map.of(AnimalGenderEnum.MALE, 3L, AnimalGenderEnum.FEMALE, 3L, AnimalGenderEnum.UNKNOWN, 0L), stats.getByGender());
+            assertEquals(Map.of(2, 4L, 5, 2L), stats.getByAge());
+        }
+
+        @Test
+        @DisplayName("Get statistics - error")
+        void getStats_dataAccessException() {
+            when(animalRepository.countByTypeDietGenderAndAge()).thenThrow(new DataAccessException("DB error") {
+            });
+
+            assertThrows(BaseException.class, () -> animalService.getStats());
+        }
+
+        @Test
+        @DisplayName("For each animal - passes every streamed animal")
+        void forEachAnimal_success() {
+            var animals = MockAnimal.generateAnimals();
+            when(animalRepository.streamAllModels()).thenReturn(animals.stream());
+            List<Animal> received = new ArrayList<>();
+
+            long count = animalService.forEachAnimal(received::add);
+
+            assertEquals(animals.size(), count);
+            assertEquals(animals, received);
+        }
+
+        @Test
+        @DisplayName("For each animal - error database")
+        void forEachAnimal_dataAccessException() {
+            when(animalRepository.streamAllModels()).thenThrow(new DataAccessException("DB error") {
+            });
+
+            assertThrows(BaseException.class, () -> animalService.forEachAnimal(animal -> {
+            }));
         }
 
         @Test
         @DisplayName("Get animals by type - success")
         void getAnimalsByType_success() {
 
-            List<AnimalEntity> list = List.of(mapper.toEntity(MockAnimal.generateAnimal(CAT)));
-
-            when(animalRepository.findByType(any())).thenReturn(list);
+            when(animalRepository.findModelsByType(any())).thenReturn(List.of(MockAnimal.generateAnimal(CAT)));
 
             List<Animal> result = animalService.getAnimalsByType(CAT.name());
 
             assertNotNull(result);
 
-            verify(animalRepository).findByType(any());
+            verify(animalRepository).findModelsByType(any());
+        }
+
+        @Test
+        @DisplayName("Get animals by type - served by the index")
+        void getAnimalsByType_fromIndex() {
+            var cats = List.of(MockAnimal.generateAnimal(CAT));
+            when(typeIndex.findByType(CAT)).thenReturn(Optional.of(cats));
+
+            List<Animal> result = animalService.getAnimalsByType("cat");
+
+            assertSame(cats, result);
+            verify(animalRepository, never()).findModelsByType(any());
         }
 
         @Test
         @DisplayName("Get animals by type - error database")
         void getAnimalsByType_dataAccessException() {
-            when(animalRepository.findByType(any())).thenThrow(new DataAccessException("DB error") {
+            when(animalRepository.findModelsByType(any())).thenThrow(new DataAccessException("DB error") {
             });
 
             Executable executable = () -> animalService.getAnimalsByType(CAT.name());
 
             assertThrows(BaseException.class, executable);
-            verify(animalRepository).findByType(any());
+            verify(animalRepository).findModelsByType(any());
         }
 
         @Test
@@ -198,20 +492,65 @@ class AnimalServiceTest {
         @Test
         @DisplayName("Delete animal - success")
         void deleteAnimal_success() {
-            animalService.deleteAnimal(1);
-            verify(animalRepository).deleteById(1);
+            animalService.deleteAnimal(1, null);
+            verify(animalRepository).deleteByIds(List.of(1));
+        }
+
+        @Test
+        @DisplayName("Delete animal - version changed")
+        void deleteAnimal_preconditionFailed() {
+            when(animalRepository.deleteByIdAndVersion(1, 2L)).thenReturn(0);
+            when(animalRepository.existsById(1)).thenReturn(true);
+
+            var e = assertThrows(BaseException.class, () -> animalService.deleteAnimal(1, 2L));
+
+            assertEquals(412, e.getStatusCode());
+            verify(animalRepository, never()).deleteByIds(anyList());
         }
 
         @Test
         @DisplayName("Delete animal - error dataAccessException")
         void deleteAnimal_dataAccessException() {
             doThrow(new DataAccessException("Error") {
-            }).when(animalRepository).deleteById(anyInt());
+            }).when(animalRepository).deleteByIds(anyList());
+
+            Executable executable = () -> animalService.deleteAnimal(1, null);
+
+            assertThrows(BaseException.class, executable);
+            verify(animalRepository).deleteByIds(List.of(1));
+        }
+
+        @Test
+        @DisplayName("Delete animals by filter - success")
+        void deleteAnimals_success() {
+            AnimalFilter filter = new AnimalFilter(null, CAT, null, null, null);
+            when(animalRepository.deleteByFilter(filter)).thenReturn(4);
+
+            assertEquals(4, animalService.deleteAnimals(filter));
 
-            Executable executable = () -> animalService.deleteAnimal(1);
+            var event = ArgumentCaptor.forClass(AnimalChangedEvent.class);
+            verify(eventPublisher).publishEvent(event.capture());
+            assertEquals(AnimalChangeEnum.BULK, event.getValue().getChange());
+        }
+
+        @Test
+        @DisplayName("Delete animals by filter - empty filter")
+        void deleteAnimals_emptyFilter() {
+            Executable executable = () -> animalService.deleteAnimals(new AnimalFilter());
+
+            assertThrows(BaseException.class, executable);
+            verify(animalRepository, never()).deleteByFilter(any());
+        }
+
+        @Test
+        @DisplayName("Delete animals by filter - error dataAccessException")
+        void deleteAnimals_dataAccessException() {
+            when(animalRepository.deleteByFilter(any())).thenThrow(new DataAccessException("Error") {
+            });
+
+            Executable executable = () -> animalService.deleteAnimals(new AnimalFilter(List.of(1, 2), null, null, null, null));
 
             assertThrows(BaseException.class, executable);
-            verify(animalRepository).deleteById(1);
         }
 
     }
@@ -219,6 +558,98 @@ class AnimalServiceTest {
     @Nested
     class UpdateAnimal {
 
+        @Test
+        @DisplayName("Update animals by filter - success")
+        void updateAnimals_success() {
+            AnimalFilter filter = new AnimalFilter(null, DOG, null, null, null);
+            AnimalBulkUpdate changes = new AnimalBulkUpdate(null, AnimalDietEnum.CARNIVOROUS, null);
+            when(animalRepository.updateByFilter(filter, changes)).thenReturn(2);
+
+            assertEquals(2, animalService.updateAnimals(filter, changes));
+        }
+
+        @Test
+        @DisplayName("Update animals by filter - missing filter or changes")
+        void updateAnimals_badRequest() {
+            AnimalFilter filter = new AnimalFilter(null, DOG, null, null, null);
+
+            assertThrows(BaseException.class, () -> animalService.updateAnimals(new AnimalFilter(), new AnimalBulkUpdate("Rex", null, null)));
+            assertThrows(BaseException.class, () -> animalService.updateAnimals(filter, new AnimalBulkUpdate()));
+            verify(animalRepository, never()).updateByFilter(any(), any());
+        }
+
+        @Test
+        @DisplayName("Update animals by filter - dataAccessException")
+        void updateAnimals_dataAccessException() {
+            when(animalRepository.updateByFilter(any(), any())).thenThrow(new DataAccessException("error") {
+            });
+
+            Executable executable = () -> animalService.updateAnimals(new AnimalFilter(null, DOG, null, null, null), new AnimalBulkUpdate("Rex", null, null));
+
+            assertThrows(BaseException.class, executable);
+        }
+
+        @Test
+        @DisplayName("Patch animal - success")
+        void patchAnimal_success() {
+            AnimalPatch patch = new AnimalPatch(null, LocalDate.now().minusYears(3), null, null, null);
+            Animal patched = MockAnimal.generateAnimal(DOG);
+            patched.setId(1);
+            patched.setVersion(4L);
+            when(animalRepository.patchById(eq(1), eq(patch), eq(3), any(), isNull())).thenReturn(Optional.of(patched));
+
+            assertSame(patched, animalService.patchAnimal(1, patch, null));
+
+            var event = ArgumentCaptor.forClass(AnimalChangedEvent.class);
+            verify(eventPublisher).publishEvent(event.capture());
+            assertEquals(AnimalChangeEnum.UPDATED, event.getValue().getChange());
+            assertEquals(List.of(1), event.getValue().getIds());
+            assertEquals(List.of(patched), event.getValue().getAnimals());
+        }
+
+        @Test
+        @DisplayName("Patch animal - empty patch or not found")
+        void patchAnimal_badRequestAndNotFound() {
+            AnimalPatch patch = new AnimalPatch("Rex", null, null, null, null);
+            when(animalRepository.patchById(eq(1), eq(patch), eq(0), any(), isNull())).thenReturn(Optional.empty());
+
+            when(animalRepository.patchById(eq(1), eq(patch), eq(0), any(), eq(5L))).thenReturn(Optional.empty());
+            when(animalRepository.existsById(1)).thenReturn(false, true);
+
+            var badRequest = assertThrows(BaseException.class, () -> animalService.patchAnimal(1, new AnimalPatch(), null));
+            var notFound = assertThrows(BaseException.class, () -> animalService.patchAnimal(1, patch, null));
+            var changed = assertThrows(BaseException.class, () -> animalService.patchAnimal(1, patch, 5L));
+
+            assertEquals(400, badRequest.getStatusCode());
+            assertEquals(404, notFound.getStatusCode());
+            assertEquals(412, changed.getStatusCode());
+        }
+
+        @Test
+        @DisplayName("Patch animal - birthday in the future")
+        void patchAnimal_futureBirthday() {
+            var tomorrow = LocalDate.now().plusDays(1);
+
+            var withoutType = assertThrows(BaseException.class,
+                    () -> animalService.patchAnimal(1, new AnimalPatch(null, tomorrow, null, null, null), null));
+            var withType = assertThrows(BaseException.class,
+                    () -> animalService.patchAnimal(1, new AnimalPatch("Rex", tomorrow, DOG, null, null), null));
+
+            assertEquals(400, withoutType.getStatusCode());
+            assertEquals(400, withType.getStatusCode());
+            verify(animalRepository, never()).patchById(anyInt(), any(), anyInt(), any(), any());
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("Patch animal - dataAccessException")
+        void patchAnimal_dataAccessException() {
+            when(animalRepository.patchById(anyInt(), any(), anyInt(), any(), any())).thenThrow(new DataAccessException("error") {
+            });
+
+            assertThrows(BaseException.class, () -> animalService.patchAnimal(1, new AnimalPatch("Rex", null, null, null, null), null));
+        }
+
         @Test
         @DisplayName("Update animal - success")
         void updateAnimal_success() {
@@ -228,12 +659,26 @@ class AnimalServiceTest {
             when(animalRepository.findById(any())).thenReturn(Optional.of(entity));
             when(animalRepository.save(any())).thenReturn(mapper.toEntity(animal));
 
-            var result = animalService.updateAnimal(animal, 1);
+            var result = animalService.updateAnimal(animal, 1, null);
 
             assertNotNull(result);
             assertEquals(DOG.name(), result.getType().name());
         }
 
+        @Test
+        @DisplayName("Update animal - birthday in the future")
+        void updateAnimal_futureBirthday() {
+            Animal animal = MockAnimal.generateAnimal(DOG);
+            animal.setBirthday(LocalDate.now().plusDays(1));
+
+            when(animalRepository.findById(any())).thenReturn(Optional.of(mapper.toEntity(new Cat())));
+
+            BaseException exception = assertThrows(BaseException.class, () -> animalService.updateAnimal(animal, 1, null));
+
+            assertEquals(400, exception.getStatusCode());
+            verify(animalRepository, never()).save(any());
+        }
+
         @Test
         @DisplayName("Update animal - not found")
         void updateAnimal_notFound() {
@@ -241,11 +686,35 @@ class AnimalServiceTest {
 
             when(animalRepository.findById(any())).thenReturn(Optional.empty());
 
-            Executable executable = () -> animalService.updateAnimal(animal, 1);
+            Executable executable = () -> animalService.updateAnimal(animal, 1, null);
 
             assertThrows(BaseException.class, executable);
         }
 
+        @Test
+        @DisplayName("Update animal - version changed")
+        void updateAnimal_preconditionFailed() {
+            AnimalEntity entity = MockAnimal.generateEntity();
+            entity.setVersion(3);
+            when(animalRepository.findById(any())).thenReturn(Optional.of(entity));
+
+            var e = assertThrows(BaseException.class, () -> animalService.updateAnimal(MockAnimal.generateAnimal(DOG), 1, 2L));
+
+            assertEquals(412, e.getStatusCode());
+            verify(animalRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Update animal - concurrent update")
+        void updateAnimal_optimisticLockingFailure() {
+            when(animalRepository.findById(any())).thenReturn(Optional.of(MockAnimal.generateEntity()));
+            when(animalRepository.save(any())).thenThrow(new OptimisticLockingFailureException("stale"));
+
+            var e = assertThrows(BaseException.class, () -> animalService.updateAnimal(MockAnimal.generateAnimal(DOG), 1, 0L));
+
+            assertEquals(412, e.getStatusCode());
+        }
+
         @Test
         @DisplayName("Update animal - dataAccessException")
         void updateAnimal_dataAccessException() {
@@ -254,7 +723,7 @@ class AnimalServiceTest {
             when(animalRepository.findById(any())).thenThrow(new DataAccessException("error") {
             });
 
-            Executable executable = () -> animalService.updateAnimal(animal, 1);
+            Executable executable = () -> animalService.updateAnimal(animal, 1, null);
 
             assertThrows(BaseException.class, executable);
         }
@@ -0,0 +1,191 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import com.ambrosiaandrade.pets.factory.MockAnimal;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.AnimalChangedEvent;
+import com.ambrosiaandrade.pets.repositories.AnimalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.CAT;
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.DOG;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalTypeIndexTest {
+
+    @Mock
+    private AnimalRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnimalTypeIndex index;
+    // Loads queued by the index, run by the test when it wants
+    private final List<Runnable> loads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new AnimalTypeIndex(repository, meterRegistry, true, 100, loads::add);
+    }
+
+    private void runLoads() {
+        while (!loads.isEmpty()) {
+            loads.remove(0).run();
+        }
+    }
+
+    private void table(Animal... animals) {
+        when(repository.findModelsAfter(anyInt(), any(Limit.class))).thenReturn(List.of(animals));
+    }
+
+    @Test
+    @DisplayName("Type index - empty until loaded, then partitioned by type")
+    void findByType_afterLoad() {
+        assertTrue(index.findByType(CAT).isEmpty());
+        assertTrue(Double.isNaN(meterRegistry.get("animal.type.index.size").tag("type", "CAT").gauge().value()));
+
+        table(animal(1, CAT), animal(2, CAT), animal(3, DOG));
+        index.onApplicationReady();
+        assertTrue(index.findByType(CAT).isEmpty());
+        runLoads();
+
+        assertEquals(List.of(1, 2), ids(CAT));
+        assertEquals(List.of(3), ids(DOG));
+        assertEquals(2.0, meterRegistry.get("animal.type.index.size").tag("type", "CAT").gauge().value());
+        assertTrue(meterRegistry.get("animal.type.index.staleness").gauge().value() >= 0);
+    }
+
+    @Test
+    @DisplayName("Type index - loads in chunks by id")
+    void load_chunks() {
+        var chunk = new ArrayList<Animal>();
+        for (int id = 1; id <= AnimalTypeIndex.LOAD_CHUNK_SIZE; id++) {
+            chunk.add(animal(id, CAT));
+        }
+        index = new AnimalTypeIndex(repository, meterRegistry, true, Integer.MAX_VALUE, Runnable::run);
+        when(repository.findModelsAfter(eq(Integer.MIN_VALUE), any(Limit.class))).thenReturn(chunk);
+        when(repository.findModelsAfter(eq(AnimalTypeIndex.LOAD_CHUNK_SIZE), any(Limit.class))).thenReturn(List.of(animal(20_000, DOG)));
+
+        index.reload();
+
+        assertEquals(AnimalTypeIndex.LOAD_CHUNK_SIZE, ids(CAT).size());
+        assertEquals(List.of(20_000), ids(DOG));
+        verify(repository, never()).findAllModels();
+    }
+
+    @Test
+    @DisplayName("Type index - a table bigger than the limit isn't held")
+    void load_tooManyAnimals() {
+        index = new AnimalTypeIndex(repository, meterRegistry, true, 2, Runnable::run);
+        table(animal(1, CAT), animal(2, CAT), animal(3, DOG));
+
+        index.reload();
+        index.onAnimalChanged(AnimalChangedEvent.deleted(1));
+
+        assertTrue(index.findByType(CAT).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Type index - disabled never loads")
+    void disabled() {
+        index = new AnimalTypeIndex(repository, new SimpleMeterRegistry(), false, 100, Runnable::run);
+
+        index.onApplicationReady();
+        index.onAnimalChanged(AnimalChangedEvent.bulk());
+
+        assertTrue(index.findByType(CAT).isEmpty());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Type index - follows saves, updates and deletes")
+    void onAnimalChanged() {
+        table(animal(1, CAT), animal(2, DOG));
+        index.reload();
+        runLoads();
+
+        index.onAnimalChanged(AnimalChangedEvent.saved(List.of(animal(3, CAT))));
+        // Type changed from CAT to DOG
+        index.onAnimalChanged(AnimalChangedEvent.updated(animal(1, DOG)));
+        index.onAnimalChanged(AnimalChangedEvent.deleted(2));
+
+        assertEquals(List.of(3), ids(CAT));
+        assertEquals(List.of(1), ids(DOG));
+    }
+
+    @Test
+    @DisplayName("Type index - a bulk change falls back to the database until the new copy is loaded")
+    void onAnimalChanged_bulk() {
+        table(animal(1, CAT));
+        index.reload();
+        runLoads();
+
+        when(repository.findModelsByIds(List.of(1))).thenReturn(List.of(animal(1, DOG)));
+        index.onAnimalChanged(AnimalChangedEvent.updated(1));
+        assertEquals(List.of(), ids(CAT));
+        assertEquals(List.of(1), ids(DOG));
+
+        table(animal(1, CAT), animal(4, CAT));
+        index.onAnimalChanged(AnimalChangedEvent.bulk());
+        index.onAnimalChanged(AnimalChangedEvent.bulk());
+        assertTrue(index.findByType(CAT).isEmpty());
+        assertEquals(1, loads.size());
+        runLoads();
+
+        assertEquals(List.of(1, 4), ids(CAT));
+        assertEquals(List.of(), ids(DOG));
+    }
+
+    @Test
+    @DisplayName("Type index - changes received during a load are replayed, a bulk one reads the table again")
+    void onAnimalChanged_duringLoad() {
+        index.reload();
+        when(repository.findModelsAfter(anyInt(), any(Limit.class))).thenAnswer(invocation -> {
+            // Committed after the chunk was read
+            index.onAnimalChanged(AnimalChangedEvent.saved(List.of(animal(5, DOG))));
+            index.onAnimalChanged(AnimalChangedEvent.deleted(1));
+            return List.of(animal(1, CAT), animal(2, CAT));
+        });
+        runLoads();
+
+        assertEquals(List.of(2), ids(CAT));
+        assertEquals(List.of(5), ids(DOG));
+
+        index.reload();
+        when(repository.findModelsAfter(anyInt(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    index.onAnimalChanged(AnimalChangedEvent.bulk());
+                    return List.of(animal(1, CAT));
+                })
+                .thenReturn(List.of(animal(1, CAT), animal(2, CAT), animal(3, CAT)));
+        runLoads();
+
+        assertEquals(List.of(1, 2, 3), ids(CAT));
+        verify(repository, times(3)).findModelsAfter(anyInt(), any(Limit.class));
+    }
+
+    private List<Integer> ids(AnimalTypeEnum type) {
+        return index.findByType(type).orElseThrow().stream().map(Animal::getId).toList();
+    }
+
+    private static Animal animal(int id, AnimalTypeEnum type) {
+        Animal animal = MockAnimal.generateAnimal(type);
+        animal.setId(id);
+        return animal;
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.config.CoalescerProperties;
+import com.ambrosiaandrade.pets.exceptions.BaseException;
+import com.ambrosiaandrade.pets.factory.MockAnimal;
+import com.ambrosiaandrade.pets.models.Animal;
+import com.ambrosiaandrade.pets.models.BulkResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.CAT;
+import static com.ambrosiaandrade.pets.enums.AnimalTypeEnum.DOG;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalWriteCoalescerTest {
+
+    @Mock
+    private AnimalService service;
+
+    private AnimalWriteCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        CoalescerProperties properties = new CoalescerProperties();
+        properties.setEnabled(true);
+        properties.setMaxBatchSize(3);
+        properties.setMaxWaitMs(200);
+        properties.setQueueCapacity(10);
+        properties.setTimeoutMs(1_000);
+
+        coalescer = new AnimalWriteCoalescer(service, properties, 500);
+        coalescer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coalescer.stop();
+    }
+
+    @Test
+    @DisplayName("Concurrent saves are committed together")
+    void submit_groupsConcurrentWrites() {
+        when(service.saveAnimalBatch(any())).thenAnswer(invocation -> {
+            List<Animal> animals = invocation.getArgument(0);
+            BulkResult result = new BulkResult();
+            for (int id = 1; id <= animals.size(); id++) {
+                result.getIds().add(id);
+            }
+            result.setSaved(result.getIds().size());
+            return result;
+        });
+
+        List<CompletableFuture<Animal>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(coalescer.submit(MockAnimal.generateAnimal(CAT)));
+        }
+
+        List<Integer> ids = futures.stream().map(CompletableFuture::join).map(Animal::getId).toList();
+
+        assertEquals(List.of(1, 2, 3), ids);
+        verify(service, times(1)).saveAnimalBatch(any());
+    }
+
+    @Test
+    @DisplayName("Rejected item fails only its caller")
+    void save_rejectedItem() {
+        BulkResult result = new BulkResult();
+        result.getIds().add(null);
+        result.getErrors().add(new BulkResult.ItemError(0, "name is required"));
+        when(service.saveAnimalBatch(any())).thenReturn(result);
+
+        Executable executable = () -> coalescer.save(MockAnimal.generateAnimal(DOG));
+
+        BaseException exception = assertThrows(BaseException.class, executable);
+        assertEquals(400, exception.getStatusCode());
+        assertEquals("name is required", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Item of a chunk that failed in the database is a server error")
+    void save_chunkError() {
+        BulkResult result = new BulkResult();
+        result.getIds().add(null);
+        result.getErrors().add(new BulkResult.ItemError(0, "DB error", 500));
+        when(service.saveAnimalBatch(any())).thenReturn(result);
+
+        Executable executable = () -> coalescer.save(MockAnimal.generateAnimal(DOG));
+
+        BaseException exception = assertThrows(BaseException.class, executable);
+        assertEquals(500, exception.getStatusCode());
+        assertEquals("DB error", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Caller stops waiting after the timeout")
+    void save_timeout() {
+        var release = new CountDownLatch(1);
+        when(service.saveAnimalBatch(any())).thenAnswer(invocation -> {
+            release.await();
+            return new BulkResult();
+        });
+
+        Executable executable = () -> coalescer.save(MockAnimal.generateAnimal(DOG));
+
+        BaseException exception = assertThrows(BaseException.class, executable);
+        assertEquals(503, exception.getStatusCode());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Error in the worker fails its batch and stops the queue")
+    void save_workerError() {
+        when(service.saveAnimalBatch(any())).thenThrow(new StackOverflowError("boom"));
+
+        BaseException exception = assertThrows(BaseException.class, () -> coalescer.save(MockAnimal.generateAnimal(DOG)));
+        assertEquals(500, exception.getStatusCode());
+
+        exception = assertThrows(BaseException.class, () -> coalescer.save(MockAnimal.generateAnimal(DOG)));
+        assertEquals(503, exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Failed batch fails every caller")
+    void save_batchError() {
+        when(service.saveAnimalBatch(any())).thenThrow(new IllegalStateException("boom"));
+
+        Executable executable = () -> coalescer.save(MockAnimal.generateAnimal(DOG));
+
+        BaseException exception = assertThrows(BaseException.class, executable);
+        assertEquals(500, exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Batch bigger than a bulk chunk is rejected at startup")
+    void constructor_batchBiggerThanChunk() {
+        CoalescerProperties properties = new CoalescerProperties();
+        properties.setMaxBatchSize(501);
+
+        assertThrows(IllegalStateException.class, () -> new AnimalWriteCoalescer(service, properties, 500));
+    }
+
+    @Test
+    @DisplayName("Stopped coalescer rejects new writes")
+    void submit_afterStop() throws InterruptedException {
+        coalescer.stop();
+
+        Executable executable = () -> coalescer.submit(MockAnimal.generateAnimal(DOG));
+
+        BaseException exception = assertThrows(BaseException.class, executable);
+        assertEquals(503, exception.getStatusCode());
+    }
+
+}
@@ -41,12 +41,12 @@ class ExportServiceTest {
     @BeforeEach
     void setUp() {
         mapper = Mappers.getMapper(IAnimalMapper.class);
-        service = new ExportService(repository, mapper);
+        service = new ExportService(repository);
     }
 
     @Test
     void getCsv() {
-        when(repository.findAll()).thenReturn(List.of(MockAnimal.generateEntity()));
+        when(repository.findAllModels()).thenReturn(List.of(mapper.toModel(MockAnimal.generateEntity())));
 
         byte[] result = service.getCsv();
 
@@ -55,7 +55,7 @@ class ExportServiceTest {
 
     @Test
     void getPdf() {
-        when(repository.findAll()).thenReturn(List.of(MockAnimal.generateEntity()));
+        when(repository.findAllModels()).thenReturn(List.of(mapper.toModel(MockAnimal.generateEntity())));
 
         byte[] result = service.getPdf();
 
@@ -67,7 +67,7 @@ class ExportServiceTest {
         var animal1 = MockAnimal.generateEntity();
         var animal2 = MockAnimal.generateEntity();
         animal2.setName("AnotherName");
-        when(repository.findAll()).thenReturn(List.of(animal1, animal2));
+        when(repository.findAllModels()).thenReturn(List.of(mapper.toModel(animal1), mapper.toModel(animal2)));
 
         byte[] result = service.getCsv();
 
@@ -83,7 +83,7 @@ class ExportServiceTest {
         var animal1 = MockAnimal.generateEntity();
         var animal2 = MockAnimal.generateEntity();
         animal2.setName("AnotherName");
-        when(repository.findAll()).thenReturn(List.of(animal1, animal2));
+        when(repository.findAllModels()).thenReturn(List.of(mapper.toModel(animal1), mapper.toModel(animal2)));
 
         byte[] result = service.getPdf();
 
@@ -94,7 +94,7 @@ class ExportServiceTest {
 
     @Test
     void getCsv_handlesIOExceptionOnClose() {
-        ExportService faultyService = new ExportService(repository, mapper) {
+        ExportService faultyService = new ExportService(repository) {
             @Override
             public byte[] getCsv() {
                 StringWriter stringWriter = new StringWriter();
@@ -119,7 +119,7 @@ class ExportServiceTest {
 
     @Test
     void getCsv_handlesIOException() {
-        ExportService faultyService = new ExportService(repository, mapper) {
+        ExportService faultyService = new ExportService(repository) {
             @Override
             public byte[] getCsv() {
                 StringWriter stringWriter = new StringWriter();
@@ -144,7 +144,7 @@ class ExportServiceTest {
 
     @Test
     void database_error() {
-        when(repository.findAll()).thenThrow(new DataAccessException("Error"){});
+        when(repository.findAllModels()).thenThrow(new DataAccessException("Error"){});
 
         Executable executable = () -> service.getCsv();
 
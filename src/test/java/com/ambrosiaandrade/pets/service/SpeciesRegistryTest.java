@@ -0,0 +1,66 @@
+package com.ambrosiaandrade.pets.service;
+
+import com.ambrosiaandrade.pets.enums.AnimalDietEnum;
+import com.ambrosiaandrade.pets.enums.AnimalTypeEnum;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeciesRegistryTest {
+
+    private final SpeciesRegistry registry = new SpeciesRegistry(List.of(new CatSpeciesRules(), new DogSpeciesRules(), new OtherSpeciesRules()));
+
+    @Test
+    @DisplayName("Every type gets its own rules")
+    void get_rulesOfEveryType() {
+        for (AnimalTypeEnum type : AnimalTypeEnum.values()) {
+            assertEquals(type, registry.get(type).type());
+        }
+        assertEquals(AnimalDietEnum.CARNIVOROUS, registry.get(AnimalTypeEnum.CAT).defaultDiet());
+        assertEquals(AnimalDietEnum.OMNIVOROUS, registry.get(AnimalTypeEnum.DOG).defaultDiet());
+        assertEquals(32, registry.get(AnimalTypeEnum.DOG).humanYears(4));
+        assertEquals(4, registry.get(AnimalTypeEnum.OTHER).humanYears(4));
+    }
+
+    @Test
+    @DisplayName("Human years in closed form are the same as adding year by year")
+    void humanYears_matchYearByYear() {
+        for (int years = -1; years <= 40; years++) {
+            int expected = 0;
+            for (int i = 0; i < years; i++) {
+                expected += i == 0 ? 15 : i == 1 ? 9 : 4;
+            }
+            assertEquals(expected, registry.get(AnimalTypeEnum.CAT).humanYears(years));
+            assertEquals(expected, registry.get(AnimalTypeEnum.DOG).humanYears(years));
+            assertEquals(years, registry.get(AnimalTypeEnum.OTHER).humanYears(years));
+            assertEquals(years, registry.get(null).humanYears(years));
+        }
+    }
+
+    @Test
+    @DisplayName("A missing or unknown type falls back to the OTHER rules")
+    void get_fallback() {
+        var registry = new SpeciesRegistry(List.of(new OtherSpeciesRules()));
+
+        assertEquals(AnimalTypeEnum.OTHER, registry.get(AnimalTypeEnum.CAT).type());
+        assertEquals(AnimalTypeEnum.OTHER, registry.get(null).type());
+    }
+
+    @Test
+    @DisplayName("The rules must be unique per type and include OTHER")
+    void constructor_invalidRules() {
+        assertThrows(IllegalStateException.class, () -> new SpeciesRegistry(List.of(new OtherSpeciesRules(), new OtherSpeciesRules())));
+        assertThrows(IllegalStateException.class, () -> new SpeciesRegistry(List.of(new CatSpeciesRules())));
+    }
+
+    @Test
+    @DisplayName("A birthday in the future is invalid")
+    void validate_futureBirthday() {
+        assertNull(registry.get(AnimalTypeEnum.CAT).validate(null, 0));
+        assertNotNull(registry.get(AnimalTypeEnum.CAT).validate(null, -1));
+    }
+
+}